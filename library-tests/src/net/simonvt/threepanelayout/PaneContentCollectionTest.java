@@ -0,0 +1,102 @@
+package net.simonvt.threepanelayout;
+
+import android.test.AndroidTestCase;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ArrayAdapter;
+import android.widget.FrameLayout;
+import android.widget.ListView;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Checks that content replaced in a pane can be collected while the app still has it set as the active view or list
+ * of the pane's indicator.
+ */
+public class PaneContentCollectionTest extends AndroidTestCase {
+
+    private static final int GC_ATTEMPTS = 20;
+
+    private ThreePaneLayout mLayout;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mLayout = new ThreePaneLayout(getContext());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        mLayout = null;
+        super.tearDown();
+    }
+
+    public void testReplacedActiveViewIsCollected() {
+        final WeakReference<View> content = setActiveViewContent();
+
+        final View replacement = replaceLeftPaneContent();
+
+        assertCollected(content, replacement);
+    }
+
+    public void testReplacedActiveListIsCollected() {
+        final WeakReference<View> content = setActiveListContent();
+
+        final View replacement = replaceLeftPaneContent();
+
+        assertCollected(content, replacement);
+    }
+
+    /**
+     * Sets content with an active view in the left pane. Done in its own method, so no local keeps it reachable.
+     */
+    private WeakReference<View> setActiveViewContent() {
+        final FrameLayout content = new FrameLayout(getContext());
+        final View row = new View(getContext());
+        row.setTag(R.id.tplActiveViewPosition, 1);
+        content.addView(row);
+
+        mLayout.beginTransaction()
+                .setPaneView(ThreePaneLayout.PANE_LEFT, content)
+                .setActiveView(ThreePaneLayout.PANE_LEFT, row, 1)
+                .commit();
+        return new WeakReference<View>(content);
+    }
+
+    /**
+     * Sets a list, anchored to by the left indicator, as the content of the left pane. The list's adapter is observed
+     * by the indicator.
+     */
+    private WeakReference<View> setActiveListContent() {
+        final ListView list = new ListView(getContext());
+        list.setAdapter(new ArrayAdapter<String>(getContext(), android.R.layout.simple_list_item_1,
+                new String[] {
+                        "Zero", "One", "Two",
+                }));
+
+        mLayout.beginTransaction()
+                .setPaneView(ThreePaneLayout.PANE_LEFT, list)
+                .setActivePosition(ThreePaneLayout.PANE_LEFT, list, 1)
+                .commit();
+        return new WeakReference<View>(list);
+    }
+
+    private View replaceLeftPaneContent() {
+        final View replacement = new FrameLayout(getContext());
+        mLayout.beginTransaction().setPaneView(ThreePaneLayout.PANE_LEFT, replacement).commit();
+        return replacement;
+    }
+
+    private void assertCollected(WeakReference<View> content, View replacement) {
+        for (int i = 0; i < GC_ATTEMPTS && content.get() != null; i++) {
+            Runtime.getRuntime().gc();
+            Runtime.getRuntime().runFinalization();
+        }
+
+        assertNull("Replaced pane content was not collected", content.get());
+        // The layout must still be reachable and hold the replacement, or the test proves nothing.
+        final ViewGroup pane = (ViewGroup) replacement.getParent();
+        assertNotNull("Replacement was not added to a pane", pane);
+        assertSame(mLayout, pane.getParent());
+    }
+}
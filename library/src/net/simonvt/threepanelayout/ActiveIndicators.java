@@ -0,0 +1,648 @@
+package net.simonvt.threepanelayout;
+
+import android.content.res.Resources;
+import android.database.DataSetObserver;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+import android.widget.AbsListView;
+import android.widget.Adapter;
+import android.widget.ScrollView;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Holds the state of any number of active view indicators. The state is kept in parallel arrays indexed by indicator,
+ * so all indicators can be advanced in a single loop per frame, skipping the ones that are idle or scrolled out.
+ * <p/>
+ * Active views, lists and scroll containers are only weakly referenced, so content removed from a pane can be
+ * collected even if the app never clears its active view. An indicator whose view is collected is no longer drawn.
+ * The adapters of anchored lists are observed through weak references as well.
+ */
+final class ActiveIndicators {
+
+    /**
+     * Tracked top of an active view that is either not set, or scrolled out of its container.
+     */
+    static final int TRACKED_TOP_NONE = Integer.MIN_VALUE;
+
+    /**
+     * The anchored position is laid out in its list.
+     */
+    static final int ANCHOR_VISIBLE = 0;
+
+    /**
+     * The anchored position is above the first visible position of its list.
+     */
+    static final int ANCHOR_ABOVE = 1;
+
+    /**
+     * The anchored position is below the last visible position of its list.
+     */
+    static final int ANCHOR_BELOW = 2;
+
+    private static final int FLAG_ANIMATING = 1;
+
+    /**
+     * The data of an anchored list changed, and the row of its position is looked up again when drawn.
+     */
+    private static final int FLAG_RESOLVE = 2;
+
+    private final View mHost;
+
+    private final Interpolator mInterpolator;
+
+    private final int mDuration;
+
+    private final int mCount;
+
+    private final WeakReference<View>[] mViews;
+
+    private final Bitmap[] mBitmaps;
+
+    /**
+     * The resource each bitmap was decoded from, or 0 if it was set directly. Bitmaps with a resource can be dropped
+     * and decoded again when needed.
+     */
+    private final int[] mBitmapResIds;
+
+    final int[] mPositions;
+
+    /**
+     * The list each indicator is anchored to by list position, or null if it tracks a view directly.
+     */
+    private final WeakReference<AbsListView>[] mLists;
+
+    /**
+     * Observes the adapter of each anchored list, or null if the indicator was never anchored to one.
+     */
+    private final AdapterObserver[] mAdapterObservers;
+
+    /**
+     * Where the anchored position is relative to the visible rows of its list.
+     */
+    final int[] mAnchorStates;
+
+    /**
+     * The scrolling ancestor of each active view, or null if it isn't inside one.
+     */
+    private final WeakReference<View>[] mScrollContainers;
+
+    final int[] mTrackedTops;
+
+    final int[] mStartTops;
+
+    final int[] mTops;
+
+    final float[] mOffsets;
+
+    final long[] mStartTimes;
+
+    final int[] mFlags;
+
+    private int mAnimatingCount;
+
+    private final Rect mActiveRect = new Rect();
+
+    @SuppressWarnings("unchecked")
+    ActiveIndicators(View host, int count, Interpolator interpolator, int duration) {
+        mHost = host;
+        mCount = count;
+        mInterpolator = interpolator;
+        mDuration = duration;
+
+        mViews = new WeakReference[count];
+        mBitmaps = new Bitmap[count];
+        mBitmapResIds = new int[count];
+        mPositions = new int[count];
+        mLists = new WeakReference[count];
+        mAdapterObservers = new AdapterObserver[count];
+        mAnchorStates = new int[count];
+        mScrollContainers = new WeakReference[count];
+        mTrackedTops = new int[count];
+        mStartTops = new int[count];
+        mTops = new int[count];
+        mOffsets = new float[count];
+        mStartTimes = new long[count];
+        mFlags = new int[count];
+
+        for (int i = 0; i < count; i++) {
+            mTrackedTops[i] = TRACKED_TOP_NONE;
+            mOffsets[i] = 1.0f;
+        }
+    }
+
+    int size() {
+        return mCount;
+    }
+
+    boolean isAnimating() {
+        return mAnimatingCount > 0;
+    }
+
+    /**
+     * Sets the bitmap of an indicator, releasing the previous one if it was acquired from {@link SharedResources}.
+     *
+     * @param resId The resource the bitmap was acquired for, or 0 if it was set directly.
+     */
+    void setBitmap(int index, Bitmap bitmap, int resId) {
+        releaseResourceBitmap(index);
+        mBitmaps[index] = bitmap;
+        mBitmapResIds[index] = resId;
+    }
+
+    Bitmap getBitmap(int index) {
+        return mBitmaps[index];
+    }
+
+    /**
+     * Acquires the bitmap of an indicator again if it was released by {@link #releaseResourceBitmaps()}.
+     *
+     * @return Whether the bitmap was acquired.
+     */
+    boolean reacquireBitmap(int index, Resources res) {
+        if (mBitmaps[index] != null || mBitmapResIds[index] == 0) {
+            return false;
+        }
+
+        mBitmaps[index] = SharedResources.acquireBitmap(res, mBitmapResIds[index]);
+        return true;
+    }
+
+    private boolean releaseResourceBitmap(int index) {
+        if (mBitmaps[index] == null || mBitmapResIds[index] == 0) {
+            return false;
+        }
+
+        SharedResources.releaseBitmap(mBitmaps[index]);
+        mBitmaps[index] = null;
+        return true;
+    }
+
+    /**
+     * Releases the bitmaps decoded from resources. They're acquired again the next time they're drawn.
+     *
+     * @return The number of bitmaps released.
+     */
+    int releaseResourceBitmaps() {
+        int released = 0;
+        for (int i = 0; i < mCount; i++) {
+            if (releaseResourceBitmap(i)) {
+                released++;
+            }
+        }
+
+        return released;
+    }
+
+    /**
+     * Returns the active view of an indicator, or null if it isn't set or has been collected.
+     */
+    View getView(int index) {
+        return get(mViews[index]);
+    }
+
+    /**
+     * Returns the list an indicator is anchored to, or null if it tracks a view directly or the list has been
+     * collected.
+     */
+    AbsListView getList(int index) {
+        return get(mLists[index]);
+    }
+
+    private static <T> T get(WeakReference<T> reference) {
+        return reference != null ? reference.get() : null;
+    }
+
+    /**
+     * Returns a reference to {@code referent}, reusing {@code reference} if it already refers to it.
+     */
+    private static <T> WeakReference<T> ref(WeakReference<T> reference, T referent) {
+        if (referent == null) {
+            return null;
+        }
+
+        return reference != null && reference.get() == referent ? reference : new WeakReference<T>(referent);
+    }
+
+    /**
+     * Sets the active view of an indicator.
+     *
+     * @return Whether the indicator started animating from its previous position.
+     */
+    boolean setView(int index, View v, int position, boolean animate) {
+        final boolean hadAnchor = hasAnchor(index);
+        mViews[index] = ref(mViews[index], v);
+        mLists[index] = null;
+        observeAdapter(index, null);
+        mPositions[index] = position;
+        mAnchorStates[index] = ANCHOR_VISIBLE;
+
+        if (hadAnchor && v != null && animate) {
+            startAnimation(index);
+            return true;
+        }
+
+        finishAnimation(index);
+        return false;
+    }
+
+    /**
+     * Anchors an indicator to a position in a list. Positions are list positions, which count the header views of a
+     * {@link android.widget.ListView}. The row is looked up through the list when it scrolls or its data changes, and
+     * while it's not laid out the indicator is drawn at the edge of the list.
+     *
+     * @return Whether the indicator started animating from its previous position.
+     */
+    boolean setListPosition(int index, AbsListView list, int position, boolean animate) {
+        final boolean hadAnchor = hasAnchor(index);
+        mLists[index] = ref(mLists[index], list);
+        mPositions[index] = position;
+        resolveListView(index);
+
+        if (hadAnchor && list != null && animate) {
+            startAnimation(index);
+            return true;
+        }
+
+        finishAnimation(index);
+        return false;
+    }
+
+    /**
+     * Whether an indicator is already anchored to a view, or to a position in a list if list isn't null.
+     */
+    boolean isAnchoredTo(int index, View v, AbsListView list, int position) {
+        if (mPositions[index] != position) {
+            return false;
+        }
+
+        return list != null ? getList(index) == list : getList(index) == null && getView(index) == v;
+    }
+
+    private boolean hasAnchor(int index) {
+        return getView(index) != null || getList(index) != null;
+    }
+
+    /**
+     * Looks up the row of an anchored position, and updates where the position is relative to the visible rows.
+     */
+    private void resolveListView(int index) {
+        final AbsListView list = getList(index);
+        mFlags[index] &= ~FLAG_RESOLVE;
+        observeAdapter(index, list);
+        if (list == null) {
+            mViews[index] = null;
+            return;
+        }
+
+        final int position = mPositions[index];
+        final int first = list.getFirstVisiblePosition();
+        final View child = list.getChildAt(position - first);
+        mViews[index] = ref(mViews[index], child);
+
+        if (child != null) {
+            mAnchorStates[index] = ANCHOR_VISIBLE;
+        } else if (position < first) {
+            mAnchorStates[index] = ANCHOR_ABOVE;
+        } else {
+            mAnchorStates[index] = ANCHOR_BELOW;
+        }
+    }
+
+    /**
+     * Observes the adapter the list currently has, and stops observing the previous one.
+     */
+    private void observeAdapter(int index, AbsListView list) {
+        final Adapter adapter = list != null ? list.getAdapter() : null;
+        if (mAdapterObservers[index] == null) {
+            if (adapter == null) {
+                return;
+            }
+            mAdapterObservers[index] = new AdapterObserver(this, index);
+        }
+
+        mAdapterObservers[index].setAdapter(adapter);
+    }
+
+    private void onDataChanged(int index) {
+        mFlags[index] |= FLAG_RESOLVE;
+        mHost.invalidate();
+    }
+
+    private void startAnimation(int index) {
+        mStartTops[index] = mTops[index];
+        mStartTimes[index] = AnimationUtils.currentAnimationTimeMillis();
+        mOffsets[index] = 0.0f;
+        if ((mFlags[index] & FLAG_ANIMATING) == 0) {
+            mFlags[index] |= FLAG_ANIMATING;
+            mAnimatingCount++;
+        }
+    }
+
+    private void finishAnimation(int index) {
+        mOffsets[index] = 1.0f;
+        if ((mFlags[index] & FLAG_ANIMATING) != 0) {
+            mFlags[index] &= ~FLAG_ANIMATING;
+            mAnimatingCount--;
+        }
+    }
+
+    /**
+     * Advances all animating indicators. Indicators whose view is scrolled out of its container are moved straight
+     * to their final position, as there's nothing to draw.
+     *
+     * @return Whether any indicator is still animating.
+     */
+    boolean step() {
+        if (mAnimatingCount == 0) {
+            return false;
+        }
+
+        final long now = AnimationUtils.currentAnimationTimeMillis();
+        final int[] flags = mFlags;
+        for (int i = 0; i < mCount; i++) {
+            if ((flags[i] & FLAG_ANIMATING) == 0) {
+                continue;
+            }
+
+            final int timePassed = (int) (now - mStartTimes[i]);
+            if (timePassed >= mDuration || !hasAnchor(i) || (getList(i) == null && get(mScrollContainers[i]) != null
+                    && mTrackedTops[i] == TRACKED_TOP_NONE)) {
+                finishAnimation(i);
+            } else {
+                mOffsets[i] = mInterpolator.getInterpolation((float) timePassed / mDuration);
+            }
+        }
+
+        return mAnimatingCount > 0;
+    }
+
+    /**
+     * Returns the top the indicator should be drawn at, given the top it'll have when the animation completes.
+     */
+    int computeTop(int index, int finalTop) {
+        if ((mFlags[index] & FLAG_ANIMATING) != 0) {
+            final int startTop = mStartTops[index];
+            mTops[index] = startTop + (int) ((finalTop - startTop) * mOffsets[index]);
+        } else {
+            mTops[index] = finalTop;
+        }
+
+        return mTops[index];
+    }
+
+    /**
+     * Draws the indicators next to their active views, at the right edge of the pane each indicator belongs to.
+     */
+    void draw(Canvas canvas, ThreePaneLayout layout) {
+        final Rect activeRect = mActiveRect;
+        final int height = layout.getHeight();
+
+        for (int i = 0; i < mCount; i++) {
+            if ((mFlags[i] & FLAG_RESOLVE) != 0) {
+                // Drawn after the list has laid out the rows for its new data.
+                resolveListView(i);
+            }
+
+            final View activeView = getView(i);
+            final AbsListView list = getList(i);
+            if (activeView == null && list == null) {
+                continue;
+            }
+
+            final Bitmap indicator = layout.getIndicatorBitmap(i);
+            if (indicator == null) {
+                continue;
+            }
+
+            int finalTop;
+
+            if (activeView != null && isPositionMatching(i) && layout.isViewDescendant(activeView)) {
+                activeView.getDrawingRect(activeRect);
+                layout.offsetDescendantRectToMyCoords(activeView, activeRect);
+                finalTop = activeRect.top + ((activeRect.height() - indicator.getHeight()) / 2);
+            } else if (list != null && layout.isViewDescendant(list)) {
+                // The anchored row isn't laid out, clamp the indicator to the edge of the list.
+                list.getDrawingRect(activeRect);
+                layout.offsetDescendantRectToMyCoords(list, activeRect);
+                if (mAnchorStates[i] == ANCHOR_ABOVE) {
+                    finalTop = activeRect.top;
+                } else {
+                    finalTop = activeRect.bottom - indicator.getHeight();
+                }
+            } else {
+                continue;
+            }
+
+            final int indicatorTop = computeTop(i, finalTop);
+            final int right = layout.getIndicatorRight(i);
+            final int left = right - layout.getIndicatorWidth(i, indicator);
+
+            canvas.save();
+            canvas.clipRect(left, 0, right, height);
+            canvas.drawBitmap(indicator, left, indicatorTop, null);
+            canvas.restore();
+        }
+    }
+
+    /**
+     * Invalidates the areas of the layout the indicators are drawn in. Bitmaps released on memory pressure aren't
+     * decoded here, that's left to drawing.
+     */
+    void invalidate(ThreePaneLayout layout) {
+        final int height = layout.getHeight();
+
+        for (int i = 0; i < mCount; i++) {
+            if (!hasAnchor(i)) {
+                continue;
+            }
+
+            final Bitmap indicator = mBitmaps[i];
+            if (indicator != null) {
+                final int right = layout.getIndicatorRight(i);
+                layout.invalidate(right - indicator.getWidth(), 0, right, height);
+            } else if (mBitmapResIds[i] != 0) {
+                // The width of a released bitmap isn't known until it's decoded again when drawn.
+                layout.invalidate();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Whether the active view still represents the position it was set for. Rows of anchored lists are asked for
+     * their position in the list, as they may have been recycled for another position since they were looked up.
+     */
+    boolean isPositionMatching(int index) {
+        final View v = getView(index);
+        if (v == null) {
+            return false;
+        }
+
+        final AbsListView list = getList(index);
+        if (list != null) {
+            return list.getPositionForView(v) == mPositions[index];
+        }
+
+        Integer tag = (Integer) v.getTag(R.id.tplActiveViewPosition);
+        final int pos = tag == null ? 0 : tag;
+        return pos == mPositions[index];
+    }
+
+    /**
+     * Resolves the scroll containers of the active views.
+     *
+     * @return Whether any active view is inside a container that can scroll, and is shown in a pane that is on
+     *         screen. Containers that are hidden can't be scrolled by the user, so they don't need tracking.
+     */
+    boolean updateScrollContainers(ThreePaneLayout layout) {
+        boolean tracking = false;
+        for (int i = 0; i < mCount; i++) {
+            final AbsListView list = getList(i);
+            final View container = list != null ? list : findScrollContainer(getView(i), layout);
+            mScrollContainers[i] = ref(mScrollContainers[i], container);
+            mTrackedTops[i] = getTrackedTop(i);
+            tracking |= container != null && layout.isInVisiblePane(container);
+        }
+
+        return tracking;
+    }
+
+    /**
+     * Updates the tracked position of each active view in its scroll container. Anchored positions are resolved to
+     * their current row first, and the indicator animates to or from the edge of the list when the row is scrolled
+     * out of or into view.
+     *
+     * @return Whether any of them moved.
+     */
+    boolean updateTrackedTops() {
+        boolean changed = false;
+        for (int i = 0; i < mCount; i++) {
+            if (get(mScrollContainers[i]) == null) {
+                continue;
+            }
+
+            if (getList(i) != null) {
+                final int oldState = mAnchorStates[i];
+                resolveListView(i);
+                if (oldState != mAnchorStates[i]) {
+                    if (oldState == ANCHOR_VISIBLE || mAnchorStates[i] == ANCHOR_VISIBLE) {
+                        startAnimation(i);
+                    }
+                    changed = true;
+                }
+            }
+
+            final int top = getTrackedTop(i);
+            if (top != mTrackedTops[i]) {
+                mTrackedTops[i] = top;
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Returns the closest ancestor of the view that scrolls its children, or null if there is none between the view
+     * and the root.
+     */
+    private static View findScrollContainer(View v, ViewParent root) {
+        if (v == null) {
+            return null;
+        }
+
+        ViewParent parent = v.getParent();
+        while (parent != null && parent != root) {
+            if (parent instanceof AbsListView || parent instanceof ScrollView) {
+                return (View) parent;
+            }
+
+            parent = parent.getParent();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the top of the active view relative to its scroll container, or {@link #TRACKED_TOP_NONE} if the view
+     * isn't tracked or has been scrolled out of its container. While it's scrolled out, scroll changes don't cause
+     * the indicator to be redrawn.
+     */
+    private int getTrackedTop(int index) {
+        final View v = getView(index);
+        final View container = get(mScrollContainers[index]);
+        if (v == null || container == null || v.getParent() == null || !isPositionMatching(index)) {
+            return TRACKED_TOP_NONE;
+        }
+
+        int top = 0;
+        View view = v;
+        while (view != container) {
+            top += view.getTop();
+            final ViewParent parent = view.getParent();
+            if (!(parent instanceof View)) {
+                return TRACKED_TOP_NONE;
+            }
+            view = (View) parent;
+            top -= view.getScrollY();
+        }
+
+        if (top + v.getHeight() <= 0 || top >= container.getHeight()) {
+            return TRACKED_TOP_NONE;
+        }
+
+        return top;
+    }
+
+    /**
+     * Marks an anchored position to be looked up again when the adapter of its list changes. Only weakly references
+     * the indicators and the adapter, so an adapter that outlives the layout doesn't keep it from being collected.
+     */
+    private static final class AdapterObserver extends DataSetObserver {
+
+        private final WeakReference<ActiveIndicators> mIndicators;
+
+        private final int mIndex;
+
+        private WeakReference<Adapter> mAdapter;
+
+        AdapterObserver(ActiveIndicators indicators, int index) {
+            mIndicators = new WeakReference<ActiveIndicators>(indicators);
+            mIndex = index;
+        }
+
+        void setAdapter(Adapter adapter) {
+            final Adapter previous = get(mAdapter);
+            if (adapter == previous) {
+                return;
+            }
+
+            if (previous != null) {
+                previous.unregisterDataSetObserver(this);
+            }
+            mAdapter = ref(mAdapter, adapter);
+            if (adapter != null) {
+                adapter.registerDataSetObserver(this);
+            }
+        }
+
+        @Override
+        public void onChanged() {
+            final ActiveIndicators indicators = mIndicators.get();
+            if (indicators != null) {
+                indicators.onDataChanged(mIndex);
+            }
+        }
+
+        @Override
+        public void onInvalidated() {
+            onChanged();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package net.simonvt.threepanelayout;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+
+/**
+ * A small pool of bitmaps keyed by size. A request is served by the smallest pooled bitmap that is at least as wide
+ * and as tall, so a pane that shrinks, or takes the width another pane gave up, doesn't allocate. Callers only use the
+ * top left part of the size they asked for.
+ * <p/>
+ * Bitmaps that leave the pool are dropped, never recycled. A snapshot that was just released may still be referenced
+ * by a display list that is waiting to be drawn, and drawing a recycled bitmap throws.
+ */
+final class BitmapPool {
+
+    private final int mMaxSize;
+
+    private final ArrayList<Bitmap> mBitmaps;
+
+    BitmapPool(int maxSize) {
+        mMaxSize = maxSize;
+        mBitmaps = new ArrayList<Bitmap>(maxSize);
+    }
+
+    /**
+     * Returns a cleared bitmap at least as large as the given size, reusing a pooled one if there is one.
+     *
+     * @return The bitmap, or null if it couldn't be allocated.
+     */
+    Bitmap acquire(int width, int height) {
+        final ArrayList<Bitmap> bitmaps = mBitmaps;
+        int best = -1;
+        long bestArea = Long.MAX_VALUE;
+        for (int i = bitmaps.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = bitmaps.get(i);
+            final long area = (long) bitmap.getWidth() * bitmap.getHeight();
+            if (bitmap.getWidth() >= width && bitmap.getHeight() >= height && area < bestArea) {
+                best = i;
+                bestArea = area;
+            }
+        }
+
+        if (best != -1) {
+            final Bitmap bitmap = bitmaps.remove(best);
+            bitmap.eraseColor(0);
+            return bitmap;
+        }
+
+        try {
+            return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            clear();
+            return null;
+        }
+    }
+
+    /**
+     * Returns a bitmap to the pool. If the pool is full, the oldest bitmap is dropped.
+     */
+    void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+
+        if (mBitmaps.size() == mMaxSize) {
+            mBitmaps.remove(0);
+        }
+        mBitmaps.add(bitmap);
+    }
+
+    /**
+     * Drops all pooled bitmaps, so they can be collected once nothing draws them anymore.
+     *
+     * @return Whether there was anything to drop.
+     */
+    boolean clear() {
+        final boolean hadBitmaps = !mBitmaps.isEmpty();
+        mBitmaps.clear();
+        return hadBitmaps;
+    }
+}
@@ -2,7 +2,9 @@ package net.simonvt.threepanelayout;
 
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.Paint;
 import android.util.AttributeSet;
+import android.view.MotionEvent;
 import android.widget.FrameLayout;
 
 /**
@@ -12,6 +14,15 @@ import android.widget.FrameLayout;
  */
 public class BuildLayerFrameLayout extends FrameLayout {
 
+    /**
+     * Number of layers built by all instances, for the trace counter. Counted like {@link #getLayerBuildCount()}.
+     */
+    private static int sLayerBuildCount;
+
+    private int mLayerBuildCount;
+
+    private int mMeasureCount;
+
     private boolean mChanged;
 
     private boolean mHardwareLayersEnabled = true;
@@ -20,6 +31,20 @@ public class BuildLayerFrameLayout extends FrameLayout {
 
     private boolean mFirst = true;
 
+    private boolean mLayerReleased;
+
+    private boolean mTouchEnabled = true;
+
+    private TimelineRecorder mTimeline;
+
+    private int mPaneIndex;
+
+    private IdleMonitor mIdleMonitor;
+
+    private boolean mDeferLayout;
+
+    private boolean mLayoutDeferred;
+
     public BuildLayerFrameLayout(Context context) {
         super(context);
         setLayerType(LAYER_TYPE_HARDWARE, null);
@@ -37,6 +62,141 @@ public class BuildLayerFrameLayout extends FrameLayout {
 
     void setHardwareLayersEnabled(boolean enabled) {
         mHardwareLayersEnabled = enabled;
+        if (!enabled) {
+            mChanged = false;
+            if (getLayerType() != LAYER_TYPE_NONE) {
+                setLayerType(LAYER_TYPE_NONE, null);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of times this view has built its hardware layer. A build is counted each time the layer type
+     * is set to {@link #LAYER_TYPE_HARDWARE} while attached, since the layer is then built on the next draw. That
+     * covers both the layers built ahead of time, and the ones set up when a transition starts.
+     */
+    int getLayerBuildCount() {
+        return mLayerBuildCount;
+    }
+
+    /**
+     * Returns the number of times this view has been measured.
+     */
+    int getMeasureCount() {
+        return mMeasureCount;
+    }
+
+    /**
+     * Sets the recorder layer builds are recorded with, or null to stop recording.
+     *
+     * @param paneIndex Index of the pane, recorded with each layer build.
+     */
+    void setTimelineRecorder(TimelineRecorder recorder, int paneIndex) {
+        mTimeline = recorder;
+        mPaneIndex = paneIndex;
+    }
+
+    /**
+     * Sets the monitor layer builds are reported to while the parent is idle, or null to stop reporting.
+     *
+     * @param paneIndex Index of the pane, reported with each layer build.
+     */
+    void setIdleMonitor(IdleMonitor monitor, int paneIndex) {
+        mIdleMonitor = monitor;
+        mPaneIndex = paneIndex;
+    }
+
+    void resetCounters() {
+        mLayerBuildCount = 0;
+        mMeasureCount = 0;
+    }
+
+    @Override
+    public void setLayerType(int layerType, Paint paint) {
+        // The layer is built the next time this view is drawn.
+        if (layerType == LAYER_TYPE_HARDWARE && getLayerType() != LAYER_TYPE_HARDWARE && mAttached) {
+            mLayerBuildCount++;
+            sLayerBuildCount++;
+            TraceCompat.setCounter("TPL:layerBuilds", sLayerBuildCount);
+            if (mTimeline != null) {
+                mTimeline.record(TimelineRecorder.EVENT_LAYER_BUILD, TimelineRecorder.PHASE_INSTANT, mPaneIndex);
+            }
+        }
+
+        super.setLayerType(layerType, paint);
+    }
+
+    /**
+     * Sets whether layout requests from inside this view are held back, e.g. while the pane is moving. A request that
+     * was held back is passed on once deferring is turned off.
+     */
+    void setDeferLayout(boolean defer) {
+        mDeferLayout = defer;
+        if (!defer && mLayoutDeferred) {
+            mLayoutDeferred = false;
+            super.requestLayout();
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        if (mDeferLayout) {
+            mLayoutDeferred = true;
+            return;
+        }
+
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        mMeasureCount++;
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * Sets whether this view and its children take part in touch dispatch. Used for panes that are positioned outside
+     * the parent, so touches aren't hit tested against their hierarchy.
+     */
+    void setTouchEnabled(boolean enabled) {
+        mTouchEnabled = enabled;
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        // Gestures that are already in progress still need to receive their up and cancel events.
+        if (!mTouchEnabled && ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            return false;
+        }
+
+        return super.dispatchTouchEvent(ev);
+    }
+
+    /**
+     * Releases the hardware layer and drawing cache of this view. They're created again the next time they're used.
+     * Display lists can't be released from here; the framework trims them itself when the window is hidden.
+     *
+     * @return Whether a hardware layer was released.
+     */
+    boolean releaseLayer() {
+        mChanged = false;
+        destroyDrawingCache();
+        if (getLayerType() != LAYER_TYPE_HARDWARE) {
+            return false;
+        }
+
+        setLayerType(LAYER_TYPE_NONE, null);
+        mLayerReleased = true;
+        return true;
+    }
+
+    /**
+     * Returns whether the layer was released since the last call, and clears the flag.
+     */
+    boolean consumeLayerReleased() {
+        final boolean released = mLayerReleased;
+        mLayerReleased = false;
+        return released;
     }
 
     @Override
@@ -79,9 +239,23 @@ public class BuildLayerFrameLayout extends FrameLayout {
                         // If it's already a hardware layer, it'll be built anyway.
                         if (layerType != LAYER_TYPE_HARDWARE || mFirst) {
                             mFirst = false;
+                            if (mIdleMonitor != null) {
+                                mIdleMonitor.check(IdleMonitor.OP_BUILD_LAYER + "(pane " + mPaneIndex + ")");
+                            }
+                            final boolean traced = TraceCompat.beginSection("TPL:buildLayer");
+                            final TimelineRecorder timeline = mTimeline;
+                            if (timeline != null) {
+                                timeline.record(TimelineRecorder.EVENT_LAYER_BUILD, TimelineRecorder.PHASE_BEGIN,
+                                        mPaneIndex);
+                            }
                             setLayerType(LAYER_TYPE_HARDWARE, null);
                             buildLayer();
                             setLayerType(LAYER_TYPE_NONE, null);
+                            if (timeline != null) {
+                                timeline.record(TimelineRecorder.EVENT_LAYER_BUILD, TimelineRecorder.PHASE_END,
+                                        mPaneIndex);
+                            }
+                            TraceCompat.endSection(traced);
                         }
                     }
                 }
@@ -38,6 +38,7 @@ public class FloatScroller {
     private float mDeltaX;
     private boolean mFinished;
     private Interpolator mInterpolator;
+    private final Interpolator mDefaultInterpolator;
 
     /**
      * Create a Scroller with the specified interpolator. If the interpolator is
@@ -47,6 +48,7 @@ public class FloatScroller {
     public FloatScroller(Interpolator interpolator) {
         mFinished = true;
         mInterpolator = interpolator;
+        mDefaultInterpolator = interpolator;
     }
 
     /**
@@ -123,6 +125,14 @@ public class FloatScroller {
     }
 
     public void startScroll(float start, float delta, int duration) {
+        startScroll(start, delta, duration, mDefaultInterpolator);
+    }
+
+    /**
+     * Start scrolling with an interpolator other than the one passed to the constructor. Only used for this scroll.
+     */
+    public void startScroll(float start, float delta, int duration, Interpolator interpolator) {
+        mInterpolator = interpolator;
         mFinished = false;
         mDuration = duration;
         mStartTime = AnimationUtils.currentAnimationTimeMillis();
@@ -0,0 +1,110 @@
+package net.simonvt.threepanelayout;
+
+import android.util.Log;
+
+import java.util.HashMap;
+
+/**
+ * Reports work scheduled by the layout while no transition or indicator animation is running. Frame callbacks and
+ * layer builds are reported every time, invalidations once the same source has invalidated the layout more than once
+ * in the same idle period.
+ * <p/>
+ * Sources are named after the two calls that led to the work, as found in the stack trace. This is only done while
+ * idle strict mode is enabled.
+ */
+final class IdleMonitor {
+
+    private static final String TAG = "ThreePaneLayout";
+
+    static final String OP_POST_ON_ANIMATION = "postOnAnimation";
+
+    static final String OP_INVALIDATE = "invalidate";
+
+    static final String OP_BUILD_LAYER = "buildLayer";
+
+    private final ThreePaneLayout mLayout;
+
+    private ThreePaneLayout.OnIdleViolationListener mListener;
+
+    /**
+     * Number of reports per source, since the monitor was created.
+     */
+    private final HashMap<String, Integer> mCounts = new HashMap<String, Integer>();
+
+    /**
+     * Number of invalidations per source in the current idle period.
+     */
+    private final HashMap<String, Integer> mIdleInvalidations = new HashMap<String, Integer>();
+
+    private boolean mWasIdle;
+
+    IdleMonitor(ThreePaneLayout layout) {
+        mLayout = layout;
+    }
+
+    void setListener(ThreePaneLayout.OnIdleViolationListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Called when the layout is about to do the work described by {@code op}. Nothing is reported unless the layout is
+     * idle.
+     */
+    void check(String op) {
+        if (!mLayout.isIdle()) {
+            mWasIdle = false;
+            return;
+        }
+
+        if (!mWasIdle) {
+            mWasIdle = true;
+            mIdleInvalidations.clear();
+        }
+
+        final String source = op + " from " + findCaller(op);
+        if (OP_INVALIDATE.equals(op) && increment(mIdleInvalidations, source) < 2) {
+            return;
+        }
+
+        final int count = increment(mCounts, source);
+        if (mListener != null) {
+            mListener.onIdleViolation(source, count);
+        } else {
+            Log.w(TAG, "Idle violation #" + count + ": " + source);
+        }
+    }
+
+    private static int increment(HashMap<String, Integer> counts, String source) {
+        final Integer count = counts.get(source);
+        final int newCount = count != null ? count + 1 : 1;
+        counts.put(source, newCount);
+        return newCount;
+    }
+
+    /**
+     * Returns the two calls made before the one doing {@code op}, e.g.
+     * {@code ThreePaneLayout.setOffset < ThreePaneLayout.onMeasure}.
+     */
+    private static String findCaller(String op) {
+        final StackTraceElement[] trace = new Throwable().getStackTrace();
+        final String monitor = IdleMonitor.class.getName();
+
+        int i = 0;
+        while (i < trace.length && (monitor.equals(trace[i].getClassName()) || op.equals(trace[i].getMethodName()))) {
+            i++;
+        }
+
+        final StringBuilder caller = new StringBuilder();
+        for (int end = Math.min(i + 2, trace.length); i < end; i++) {
+            if (caller.length() > 0) {
+                caller.append(" < ");
+            }
+            final String className = trace[i].getClassName();
+            caller.append(className.substring(className.lastIndexOf('.') + 1))
+                    .append('.')
+                    .append(trace[i].getMethodName());
+        }
+
+        return caller.length() > 0 ? caller.toString() : "unknown";
+    }
+}
@@ -0,0 +1,70 @@
+package net.simonvt.threepanelayout;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.view.View;
+
+/**
+ * Holds on to the pane content of layouts that are detached because their activity is recreated for a configuration
+ * change, so the new layout with the same id can adopt it. The activity is destroyed and recreated while handling a
+ * single message, so content that hasn't been claimed once the main thread gets to its next message is dropped.
+ */
+final class PaneContentRetainer {
+
+    private static final SparseArray<View[]> sRetained = new SparseArray<View[]>();
+
+    private static Handler sHandler;
+
+    private static final Runnable sClearRunnable = new Runnable() {
+        @Override
+        public void run() {
+            sRetained.clear();
+        }
+    };
+
+    private PaneContentRetainer() {
+    }
+
+    static void retain(int id, View[] content) {
+        sRetained.put(id, content);
+
+        if (sHandler == null) {
+            sHandler = new Handler(Looper.getMainLooper());
+        }
+        sHandler.removeCallbacks(sClearRunnable);
+        sHandler.post(sClearRunnable);
+    }
+
+    /**
+     * Returns the content retained for the given id, and forgets about it.
+     *
+     * @return The content of each pane, or null if nothing was retained.
+     */
+    static View[] claim(int id) {
+        final View[] content = sRetained.get(id);
+        if (content != null) {
+            sRetained.remove(id);
+        }
+
+        return content;
+    }
+
+    /**
+     * Whether the activity the context belongs to is being recreated for a configuration change.
+     */
+    static boolean isChangingConfigurations(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return ((Activity) context).isChangingConfigurations();
+            }
+
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+
+        return false;
+    }
+}
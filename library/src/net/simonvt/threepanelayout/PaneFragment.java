@@ -0,0 +1,103 @@
+package net.simonvt.threepanelayout;
+
+import android.app.Fragment;
+import android.view.View;
+import android.view.ViewParent;
+
+/**
+ * Fragment that is told when the pane it's in is hidden, partially visible or fully visible. Override
+ * {@link #onPaneVisibilityChanged(int)} to pause loaders, animations, video or polling while the pane is off screen.
+ * <p/>
+ * The fragment's view must be inside one of the panes of a {@link ThreePaneLayout}, directly or through other
+ * views. Visibility is only tracked while the fragment is started, and the pane is reported as hidden when the
+ * fragment stops.
+ */
+public class PaneFragment extends Fragment implements ThreePaneLayout.OnPaneVisibilityChangeListener {
+
+    private ThreePaneLayout mLayout;
+
+    private int mPane;
+
+    private int mPaneVisibility = ThreePaneLayout.PANE_HIDDEN;
+
+    @Override
+    public void onStart() {
+        super.onStart();
+        findPane();
+        if (mLayout != null) {
+            mLayout.addOnPaneVisibilityChangeListener(this);
+            setPaneVisibility(mLayout.getPaneVisibility(mPane));
+        }
+    }
+
+    @Override
+    public void onStop() {
+        if (mLayout != null) {
+            mLayout.removeOnPaneVisibilityChangeListener(this);
+            mLayout = null;
+        }
+        setPaneVisibility(ThreePaneLayout.PANE_HIDDEN);
+        super.onStop();
+    }
+
+    @Override
+    public final void onPaneVisibilityChange(int pane, int visibility) {
+        if (pane == mPane) {
+            setPaneVisibility(visibility);
+        }
+    }
+
+    /**
+     * Returns the pane this fragment is in, or 0 if it isn't in a {@link ThreePaneLayout} or isn't started.
+     */
+    public int getPane() {
+        return mLayout != null ? mPane : 0;
+    }
+
+    /**
+     * Returns one of {@link ThreePaneLayout#PANE_HIDDEN}, {@link ThreePaneLayout#PANE_PARTIALLY_VISIBLE} or
+     * {@link ThreePaneLayout#PANE_VISIBLE}.
+     */
+    public int getPaneVisibility() {
+        return mPaneVisibility;
+    }
+
+    /**
+     * Whether any part of the pane is on screen.
+     */
+    public boolean isPaneVisible() {
+        return mPaneVisibility != ThreePaneLayout.PANE_HIDDEN;
+    }
+
+    /**
+     * Called when the visibility of the pane this fragment is in changes.
+     *
+     * @param visibility One of {@link ThreePaneLayout#PANE_HIDDEN}, {@link ThreePaneLayout#PANE_PARTIALLY_VISIBLE}
+     *                   or {@link ThreePaneLayout#PANE_VISIBLE}.
+     */
+    protected void onPaneVisibilityChanged(int visibility) {
+    }
+
+    private void setPaneVisibility(int visibility) {
+        if (visibility != mPaneVisibility) {
+            mPaneVisibility = visibility;
+            onPaneVisibilityChanged(visibility);
+        }
+    }
+
+    private void findPane() {
+        View child = getView();
+        ViewParent parent = child != null ? child.getParent() : null;
+        while (parent instanceof View) {
+            if (parent instanceof ThreePaneLayout) {
+                final ThreePaneLayout layout = (ThreePaneLayout) parent;
+                mPane = layout.getPaneOf(child);
+                mLayout = mPane != 0 ? layout : null;
+                return;
+            }
+
+            child = (View) parent;
+            parent = parent.getParent();
+        }
+    }
+}
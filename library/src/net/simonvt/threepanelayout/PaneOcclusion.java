@@ -0,0 +1,151 @@
+package net.simonvt.threepanelayout;
+
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Computes the horizontal range of each pane that isn't covered by an opaque pane drawn above it, or moved outside
+ * the parent. All panes are as tall as the parent, so a single range per pane describes its visible part.
+ */
+final class PaneOcclusion {
+
+    private final View[] mPanes;
+
+    private final int[] mClipLefts;
+
+    private final int[] mClipRights;
+
+    private final boolean[] mFullyVisible;
+
+    /**
+     * Width each pane is limited to, or -1 to draw its full width.
+     */
+    private final int[] mVisibleWidths;
+
+    PaneOcclusion(View... panes) {
+        mPanes = panes;
+        mClipLefts = new int[panes.length];
+        mClipRights = new int[panes.length];
+        mFullyVisible = new boolean[panes.length];
+        mVisibleWidths = new int[panes.length];
+        clearVisibleWidths();
+    }
+
+    /**
+     * Limits the part of a pane that is drawn to its left {@code width} pixels.
+     */
+    void setVisibleWidth(int index, int width) {
+        mVisibleWidths[index] = width;
+    }
+
+    void clearVisibleWidths() {
+        for (int i = 0; i < mVisibleWidths.length; i++) {
+            mVisibleWidths[i] = -1;
+        }
+    }
+
+    private int getVisibleWidth(int index) {
+        final int width = mPanes[index].getWidth();
+        return mVisibleWidths[index] >= 0 ? Math.min(mVisibleWidths[index], width) : width;
+    }
+
+    /**
+     * Updates the visible range of each pane from the current translations. Panes are assumed to be drawn in order.
+     *
+     * @param width           The width of the parent.
+     * @param forcedOccluders Bit mask, with bit {@code 1 << index} set for panes that cover the panes below them
+     *                        whether or not they're opaque.
+     */
+    void update(int width, int forcedOccluders) {
+        final View[] panes = mPanes;
+        final int count = panes.length;
+
+        for (int i = 0; i < count; i++) {
+            final View pane = panes[i];
+            if (isTransformed(pane)) {
+                // Scaled panes aren't drawn within their bounds, and faded panes are drawn through a layer. Leave them
+                // unclipped.
+                mClipLefts[i] = 0;
+                mClipRights[i] = width;
+                mFullyVisible[i] = true;
+                continue;
+            }
+
+            final int paneLeft = (int) (pane.getLeft() + pane.getTranslationX());
+            final int paneRight = paneLeft + getVisibleWidth(i);
+            int left = Math.max(paneLeft, 0);
+            int right = Math.min(paneRight, width);
+
+            for (int j = i + 1; j < count && left < right; j++) {
+                final View above = panes[j];
+                // Translucent panes show what's below them, even if they're forced occluders.
+                if (above.getVisibility() != View.VISIBLE || isTransformed(above)
+                        || ((forcedOccluders & (1 << j)) == 0 && !isOpaque(above))) {
+                    continue;
+                }
+
+                final int aboveLeft = (int) (above.getLeft() + above.getTranslationX());
+                final int aboveRight = aboveLeft + getVisibleWidth(j);
+                if (aboveLeft <= left && aboveRight >= right) {
+                    right = left;
+                } else if (aboveLeft <= left && aboveRight > left) {
+                    left = aboveRight;
+                } else if (aboveRight >= right && aboveLeft < right) {
+                    right = aboveLeft;
+                }
+                // A pane covering only the center of the one below would split it in two, it's drawn in full.
+            }
+
+            mClipLefts[i] = left;
+            mClipRights[i] = right;
+            mFullyVisible[i] = left == paneLeft && right == paneLeft + pane.getWidth();
+        }
+    }
+
+    /**
+     * Whether no part of the pane is visible.
+     */
+    boolean isHidden(int index) {
+        return mClipLefts[index] >= mClipRights[index];
+    }
+
+    /**
+     * Whether the whole pane is visible, and doesn't need to be clipped.
+     */
+    boolean isFullyVisible(int index) {
+        return mFullyVisible[index];
+    }
+
+    int getClipLeft(int index) {
+        return mClipLefts[index];
+    }
+
+    int getClipRight(int index) {
+        return mClipRights[index];
+    }
+
+    /**
+     * Whether a pane is scaled or faded, and can't be treated as a rectangle that hides what's below it.
+     */
+    private static boolean isTransformed(View pane) {
+        return pane.getScaleX() != 1.0f || pane.getScaleY() != 1.0f || pane.getAlpha() < 1.0f;
+    }
+
+    /**
+     * A pane is opaque if it, or the content filling it, has an opaque background.
+     */
+    private static boolean isOpaque(View pane) {
+        if (pane.isOpaque()) {
+            return true;
+        }
+
+        if (pane instanceof ViewGroup && ((ViewGroup) pane).getChildCount() == 1) {
+            final View content = ((ViewGroup) pane).getChildAt(0);
+            return content.getVisibility() == View.VISIBLE && content.getLeft() <= 0 && content.getTop() <= 0
+                    && content.getRight() >= pane.getWidth() && content.getBottom() >= pane.getHeight()
+                    && content.isOpaque();
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package net.simonvt.threepanelayout;
+
+import android.os.SystemClock;
+import android.view.View;
+
+/**
+ * State of an interactive pane resize, see {@link ThreePaneLayout#beginPaneResize()}. While a resize is active the
+ * panes keep their measured widths, and are moved and clipped to the new widths instead.
+ */
+final class PaneResize {
+
+    private boolean mActive;
+
+    private int mLeftPaneWidth;
+
+    private int mCollapsedWidth;
+
+    private int mMeasureInterval;
+
+    private long mLastMeasureTime;
+
+    void begin(int leftPaneWidth, int collapsedWidth) {
+        mActive = true;
+        mLeftPaneWidth = leftPaneWidth;
+        mCollapsedWidth = collapsedWidth;
+        mLastMeasureTime = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Sets the new widths.
+     *
+     * @return Whether the panes should be measured for the new widths now.
+     */
+    boolean update(int leftPaneWidth, int collapsedWidth) {
+        mLeftPaneWidth = leftPaneWidth;
+        mCollapsedWidth = collapsedWidth;
+
+        final long now = SystemClock.uptimeMillis();
+        if (mMeasureInterval > 0 && now - mLastMeasureTime >= mMeasureInterval) {
+            mLastMeasureTime = now;
+            return true;
+        }
+
+        return false;
+    }
+
+    void end() {
+        mActive = false;
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    int getLeftPaneWidth() {
+        return mLeftPaneWidth;
+    }
+
+    int getCollapsedWidth() {
+        return mCollapsedWidth;
+    }
+
+    /**
+     * @param intervalMillis The minimum time between measures, or 0 to only measure when the resize ends.
+     */
+    void setMeasureInterval(int intervalMillis) {
+        mMeasureInterval = intervalMillis;
+    }
+
+    /**
+     * The panes are still laid out for the measured widths. Moves them to where the new widths put them, and hides
+     * what's past the new widths, until they're measured again.
+     */
+    void apply(PaneTransform.Coefficients c, PaneOcclusion occlusion, View middlePane, View rightPane,
+            boolean staticLayout) {
+        c.mTranslationStarts[1] += mLeftPaneWidth - middlePane.getLeft();
+        occlusion.setVisibleWidth(0, mLeftPaneWidth);
+        if (staticLayout) {
+            c.mTranslationStarts[2] += mLeftPaneWidth + mCollapsedWidth - rightPane.getLeft();
+            occlusion.setVisibleWidth(1, mCollapsedWidth);
+        }
+    }
+}
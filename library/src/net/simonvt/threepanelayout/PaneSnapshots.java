@@ -0,0 +1,120 @@
+package net.simonvt.threepanelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * Bitmap snapshots of the panes, drawn in their place while they slide. The bitmaps come from a pool keyed by size,
+ * so repeated transitions reuse them. A pooled bitmap may be larger than the pane, so only the part the size of the
+ * pane is drawn into and drawn.
+ */
+final class PaneSnapshots {
+
+    private final Bitmap[] mSnapshots;
+
+    /**
+     * The part of each snapshot the pane was drawn into.
+     */
+    private final Rect[] mBounds;
+
+    private final BitmapPool mPool;
+
+    private Canvas mCanvas;
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private boolean mActive;
+
+    PaneSnapshots(int count) {
+        mSnapshots = new Bitmap[count];
+        mBounds = new Rect[count];
+        for (int i = 0; i < count; i++) {
+            mBounds[i] = new Rect();
+        }
+        mPool = new BitmapPool(count);
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * Renders each visible pane into a bitmap.
+     */
+    void capture(View[] panes) {
+        mActive = true;
+        if (mCanvas == null) {
+            mCanvas = new Canvas();
+        }
+
+        for (int i = 0; i < panes.length; i++) {
+            final View pane = panes[i];
+            final int width = pane.getWidth();
+            final int height = pane.getHeight();
+            if (width == 0 || height == 0 || pane.getVisibility() != View.VISIBLE) {
+                continue;
+            }
+
+            final Bitmap snapshot = mPool.acquire(width, height);
+            if (snapshot != null) {
+                mBounds[i].set(0, 0, width, height);
+                mCanvas.setBitmap(snapshot);
+                mCanvas.save();
+                mCanvas.clipRect(mBounds[i]);
+                pane.draw(mCanvas);
+                mCanvas.restore();
+                mSnapshots[i] = snapshot;
+            }
+        }
+
+        mCanvas.setBitmap(null);
+    }
+
+    /**
+     * Returns the snapshot of a pane, or null if it's drawn live.
+     */
+    Bitmap get(int index) {
+        return mSnapshots[index];
+    }
+
+    /**
+     * Draws the snapshot of a pane where the pane would be drawn, with its translation, scale and alpha.
+     *
+     * @return Whether the pane has a snapshot.
+     */
+    boolean draw(Canvas canvas, View pane, int index) {
+        final Bitmap snapshot = mSnapshots[index];
+        if (snapshot == null) {
+            return false;
+        }
+
+        final int saveCount = canvas.save();
+        canvas.translate(pane.getLeft(), pane.getTop());
+        canvas.concat(pane.getMatrix());
+        mPaint.setAlpha((int) (pane.getAlpha() * 255));
+        canvas.drawBitmap(snapshot, mBounds[index], mBounds[index], mPaint);
+        canvas.restoreToCount(saveCount);
+        return true;
+    }
+
+    /**
+     * Returns the snapshots to the pool.
+     */
+    void release() {
+        mActive = false;
+        for (int i = 0; i < mSnapshots.length; i++) {
+            mPool.release(mSnapshots[i]);
+            mSnapshots[i] = null;
+        }
+    }
+
+    /**
+     * Drops the pooled bitmaps. Snapshots in use are returned to the pool when released.
+     */
+    void trimPool() {
+        mPool.clear();
+    }
+}
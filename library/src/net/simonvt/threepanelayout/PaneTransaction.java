@@ -0,0 +1,155 @@
+package net.simonvt.threepanelayout;
+
+import android.view.View;
+import android.widget.AbsListView;
+
+/**
+ * A set of changes to the panes of a {@link ThreePaneLayout}, applied together when committed.
+ *
+ * @see ThreePaneLayout#beginTransaction()
+ */
+public final class PaneTransaction {
+
+    private final ThreePaneLayout mLayout;
+
+    private int mVisiblePanes;
+
+    private boolean mAnimate = true;
+
+    /**
+     * The indicators with a new active view, a bit per indicator index.
+     */
+    private int mActiveViewIndicators;
+
+    private final View[] mActiveViews = new View[ThreePaneLayout.INDICATOR_COUNT];
+
+    private final AbsListView[] mActiveLists = new AbsListView[ThreePaneLayout.INDICATOR_COUNT];
+
+    private final int[] mActivePositions = new int[ThreePaneLayout.INDICATOR_COUNT];
+
+    /**
+     * The panes with new content, a bit per pane index.
+     */
+    private int mContentPanes;
+
+    private final int[] mContentLayouts = new int[ThreePaneLayout.PANE_COUNT];
+
+    private final View[] mContentViews = new View[ThreePaneLayout.PANE_COUNT];
+
+    private boolean mCommitted;
+
+    PaneTransaction(ThreePaneLayout layout) {
+        mLayout = layout;
+    }
+
+    public PaneTransaction showLeftPane() {
+        mVisiblePanes = ThreePaneLayout.PANE_LEFT | ThreePaneLayout.PANE_MIDDLE;
+        return this;
+    }
+
+    public PaneTransaction showRightPane() {
+        mVisiblePanes = mLayout.isMiddlePaneCollapsible()
+                ? ThreePaneLayout.PANE_RIGHT | ThreePaneLayout.PANE_MIDDLE
+                : ThreePaneLayout.PANE_RIGHT;
+        return this;
+    }
+
+    /**
+     * Sets whether the changes are animated, both the change in visible panes and the active indicators moving to
+     * their new views. Defaults to true.
+     */
+    public PaneTransaction setAnimate(boolean animate) {
+        mAnimate = animate;
+        return this;
+    }
+
+    public PaneTransaction setActiveView(int pane, View v, int position) {
+        final int index = ThreePaneLayout.indicatorIndex(pane);
+        mActiveViewIndicators |= 1 << index;
+        mActiveViews[index] = v;
+        mActiveLists[index] = null;
+        mActivePositions[index] = position;
+        return this;
+    }
+
+    public PaneTransaction setActivePosition(int pane, AbsListView list, int position) {
+        final int index = ThreePaneLayout.indicatorIndex(pane);
+        mActiveViewIndicators |= 1 << index;
+        mActiveViews[index] = null;
+        mActiveLists[index] = list;
+        mActivePositions[index] = position;
+        return this;
+    }
+
+    public PaneTransaction setPaneLayout(int pane, int layoutId) {
+        final int index = ThreePaneLayout.paneIndex(pane);
+        mContentPanes |= 1 << index;
+        mContentLayouts[index] = layoutId;
+        mContentViews[index] = null;
+        return this;
+    }
+
+    public PaneTransaction setPaneView(int pane, View content) {
+        final int index = ThreePaneLayout.paneIndex(pane);
+        mContentPanes |= 1 << index;
+        mContentLayouts[index] = 0;
+        mContentViews[index] = content;
+        return this;
+    }
+
+    /**
+     * Applies the changes. Changes that don't differ from the current state are skipped.
+     */
+    public void commit() {
+        if (mCommitted) {
+            throw new IllegalStateException("Transaction already committed");
+        }
+        mCommitted = true;
+
+        final ThreePaneLayout layout = mLayout;
+        final ActiveIndicators indicators = layout.getIndicators();
+        boolean invalidate = false;
+        boolean animateIndicators = false;
+
+        for (int i = 0; i < ThreePaneLayout.PANE_COUNT; i++) {
+            if ((mContentPanes & (1 << i)) != 0) {
+                layout.setPaneContent(i, mContentLayouts[i], mContentViews[i]);
+            }
+        }
+
+        for (int i = 0; i < ThreePaneLayout.INDICATOR_COUNT; i++) {
+            if ((mActiveViewIndicators & (1 << i)) == 0) {
+                continue;
+            }
+
+            final View v = mActiveViews[i];
+            final AbsListView list = mActiveLists[i];
+            final int position = mActivePositions[i];
+            if (indicators.isAnchoredTo(i, v, list, position)) {
+                continue;
+            }
+
+            if (list != null) {
+                animateIndicators |= indicators.setListPosition(i, list, position, mAnimate);
+            } else {
+                animateIndicators |= indicators.setView(i, v, position, mAnimate);
+            }
+            invalidate = true;
+        }
+
+        if (mActiveViewIndicators != 0 || mContentPanes != 0) {
+            layout.updateScrollTracking();
+        }
+
+        if (mVisiblePanes != 0) {
+            // An animation invalidates on every frame anyway
+            invalidate &= !layout.setVisiblePanes(mVisiblePanes, mAnimate);
+        }
+
+        if (animateIndicators) {
+            layout.startIndicatorAnimation();
+        } else if (invalidate) {
+            layout.invalidate();
+        }
+    }
+}
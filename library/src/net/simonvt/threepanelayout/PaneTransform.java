@@ -0,0 +1,140 @@
+package net.simonvt.threepanelayout;
+
+/**
+ * Describes how the panes of a {@link ThreePaneLayout} move as it slides from the left pane (offset 0) to the right
+ * pane (offset 1). Each pane property changes linearly with the offset, between a start and an end value. Those values
+ * are computed once per size change, so every frame only applies a multiply-add per pane property.
+ *
+ * @see ThreePaneLayout#setPaneTransform(PaneTransform)
+ */
+public interface PaneTransform {
+
+    /**
+     * The left and middle panes slide out together by the width of the left pane, while the right pane slides in
+     * next to the collapsed middle pane. Used when the middle pane is collapsible.
+     */
+    PaneTransform COLLAPSE = new PaneTransform() {
+        @Override
+        public void computeCoefficients(Coefficients out, int width, int leftPaneWidth,
+                int middlePaneCollapsedWidth) {
+            out.setTranslationX(ThreePaneLayout.PANE_LEFT, 0, -leftPaneWidth);
+            out.setTranslationX(ThreePaneLayout.PANE_MIDDLE, 0, -leftPaneWidth);
+            out.setTranslationX(ThreePaneLayout.PANE_RIGHT, 0, -(width - middlePaneCollapsedWidth));
+        }
+    };
+
+    /**
+     * All panes slide by the width of the layout. Used when the middle pane isn't collapsible.
+     */
+    PaneTransform SLIDE = new PaneTransform() {
+        @Override
+        public void computeCoefficients(Coefficients out, int width, int leftPaneWidth,
+                int middlePaneCollapsedWidth) {
+            out.setTranslationX(ThreePaneLayout.PANE_LEFT, 0, -width);
+            out.setTranslationX(ThreePaneLayout.PANE_MIDDLE, 0, -width);
+            out.setTranslationX(ThreePaneLayout.PANE_RIGHT, 0, -width);
+        }
+    };
+
+    /**
+     * Computes the start and end values of the pane properties. {@code out} is reset before this is called, so
+     * properties that aren't set don't change.
+     *
+     * @param out                      The coefficients to fill in.
+     * @param width                    The width of the layout.
+     * @param leftPaneWidth            The width of the left pane.
+     * @param middlePaneCollapsedWidth The width of the middle pane while it's collapsed.
+     */
+    void computeCoefficients(Coefficients out, int width, int leftPaneWidth, int middlePaneCollapsedWidth);
+
+    /**
+     * The start and end values of the properties of each pane.
+     */
+    final class Coefficients {
+
+        final float[] mTranslationStarts = new float[3];
+
+        final float[] mTranslationDeltas = new float[3];
+
+        final float[] mScaleStarts = new float[3];
+
+        final float[] mScaleDeltas = new float[3];
+
+        final float[] mAlphaStarts = new float[3];
+
+        final float[] mAlphaDeltas = new float[3];
+
+        boolean mScaled;
+
+        boolean mFaded;
+
+        Coefficients() {
+            reset();
+        }
+
+        void reset() {
+            for (int i = 0; i < 3; i++) {
+                mTranslationStarts[i] = 0.0f;
+                mTranslationDeltas[i] = 0.0f;
+                mScaleStarts[i] = 1.0f;
+                mScaleDeltas[i] = 0.0f;
+                mAlphaStarts[i] = 1.0f;
+                mAlphaDeltas[i] = 0.0f;
+            }
+            mScaled = false;
+            mFaded = false;
+        }
+
+        /**
+         * Whether the pane at the given index moves, scales or fades as the offset changes.
+         */
+        boolean isMoving(int index) {
+            return mTranslationDeltas[index] != 0.0f || mScaleDeltas[index] != 0.0f || mAlphaDeltas[index] != 0.0f;
+        }
+
+        /**
+         * Sets the horizontal translation of a pane, in pixels.
+         *
+         * @param pane One of {@link ThreePaneLayout#PANE_LEFT}, {@link ThreePaneLayout#PANE_MIDDLE} or
+         *             {@link ThreePaneLayout#PANE_RIGHT}.
+         */
+        public void setTranslationX(int pane, float start, float end) {
+            final int index = index(pane);
+            mTranslationStarts[index] = start;
+            mTranslationDeltas[index] = end - start;
+        }
+
+        /**
+         * Sets the scale of a pane, around its center.
+         */
+        public void setScale(int pane, float start, float end) {
+            final int index = index(pane);
+            mScaleStarts[index] = start;
+            mScaleDeltas[index] = end - start;
+            mScaled = true;
+        }
+
+        /**
+         * Sets the alpha of a pane.
+         */
+        public void setAlpha(int pane, float start, float end) {
+            final int index = index(pane);
+            mAlphaStarts[index] = start;
+            mAlphaDeltas[index] = end - start;
+            mFaded = true;
+        }
+
+        private static int index(int pane) {
+            switch (pane) {
+                case ThreePaneLayout.PANE_LEFT:
+                    return 0;
+                case ThreePaneLayout.PANE_MIDDLE:
+                    return 1;
+                case ThreePaneLayout.PANE_RIGHT:
+                    return 2;
+                default:
+                    throw new IllegalArgumentException("Unknown pane " + pane);
+            }
+        }
+    }
+}
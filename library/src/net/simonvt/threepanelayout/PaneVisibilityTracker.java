@@ -0,0 +1,72 @@
+package net.simonvt.threepanelayout;
+
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * Tracks how much of each pane is on screen, and tells listeners when it changes. Visibility is derived from the
+ * clip ranges computed by {@link PaneOcclusion}, so panes covered by an opaque pane above them count as hidden.
+ */
+final class PaneVisibilityTracker {
+
+    private static final int VISIBILITY_UNKNOWN = -1;
+
+    private final int[] mVisibilities;
+
+    private final ArrayList<ThreePaneLayout.OnPaneVisibilityChangeListener> mListeners
+            = new ArrayList<ThreePaneLayout.OnPaneVisibilityChangeListener>();
+
+    PaneVisibilityTracker(int count) {
+        mVisibilities = new int[count];
+        for (int i = 0; i < count; i++) {
+            mVisibilities[i] = VISIBILITY_UNKNOWN;
+        }
+    }
+
+    void addListener(ThreePaneLayout.OnPaneVisibilityChangeListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    void removeListener(ThreePaneLayout.OnPaneVisibilityChangeListener listener) {
+        mListeners.remove(listener);
+        if (mListeners.isEmpty()) {
+            // Nothing is tracked until a listener is added again, so the current state can't be relied on.
+            for (int i = 0; i < mVisibilities.length; i++) {
+                mVisibilities[i] = VISIBILITY_UNKNOWN;
+            }
+        }
+    }
+
+    boolean hasListeners() {
+        return !mListeners.isEmpty();
+    }
+
+    static int getVisibility(PaneOcclusion occlusion, View pane, int index) {
+        if (pane.getVisibility() != View.VISIBLE || occlusion.isHidden(index)) {
+            return ThreePaneLayout.PANE_HIDDEN;
+        }
+
+        return occlusion.isFullyVisible(index) ? ThreePaneLayout.PANE_VISIBLE : ThreePaneLayout.PANE_PARTIALLY_VISIBLE;
+    }
+
+    /**
+     * Updates the visibility of each pane from the clip ranges of {@code occlusion}, and dispatches the changes.
+     */
+    void update(PaneOcclusion occlusion, View[] panes) {
+        for (int i = 0; i < panes.length; i++) {
+            final int visibility = getVisibility(occlusion, panes[i], i);
+            if (visibility == mVisibilities[i]) {
+                continue;
+            }
+
+            mVisibilities[i] = visibility;
+            // Listeners may remove themselves when called.
+            for (int j = mListeners.size() - 1; j >= 0; j--) {
+                mListeners.get(j).onPaneVisibilityChange(1 << i, visibility);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package net.simonvt.threepanelayout;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.view.View;
+
+/**
+ * Debug overlay drawn above the panes, see {@link ThreePaneLayout#setPerformanceOverlayEnabled(boolean)}. Shows the
+ * time between frames while the panes move, the offset and page state, how each pane is drawn, and the measure and
+ * layout passes since the last transition started.
+ * <p/>
+ * Nothing is allocated while drawing.
+ */
+final class PerformanceOverlay {
+
+    private static final int FRAME_COUNT = 60;
+
+    /**
+     * Frame time at the top of the graph, in frame budgets.
+     */
+    private static final int GRAPH_MAX_FRAMES = 3;
+
+    private static final int COLOR_BACKGROUND = 0xB0000000;
+
+    private static final int COLOR_TEXT = 0xFFFFFFFF;
+
+    private static final int COLOR_IDLE = 0xFF808080;
+
+    private static final int COLOR_LAYER = 0xFF00C0FF;
+
+    private static final int COLOR_SNAPSHOT = 0xFFFFD000;
+
+    private static final int COLOR_BUILDING = 0xFFFF4040;
+
+    private static final int COLOR_FRAME_OK = 0xFF40C040;
+
+    private static final int COLOR_FRAME_SLOW = 0xFFFFD000;
+
+    private static final int COLOR_FRAME_DROPPED = 0xFFFF4040;
+
+    private static final String[] PANE_NAMES = new String[] {
+            "left  ", "middle", "right ",
+    };
+
+    private final BuildLayerFrameLayout[] mPanes;
+
+    private final PaneSnapshots mSnapshots;
+
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    private final StringBuilder mText = new StringBuilder();
+
+    private final int mPadding;
+
+    private final int mBarWidth;
+
+    private final int mGraphHeight;
+
+    private final int mLineHeight;
+
+    /**
+     * Time between frames in milliseconds, oldest first from {@link #mNextFrame}.
+     */
+    private final float[] mFrameMillis = new float[FRAME_COUNT];
+
+    private int mNextFrame;
+
+    private long mLastDrawNanos;
+
+    /**
+     * Transition count the measure and layout counts were reset for.
+     */
+    private int mTransitionCount = -1;
+
+    private int mMeasureCount;
+
+    private int mLayoutCount;
+
+    /**
+     * The expected time between frames at the refresh rate of the display.
+     */
+    private float mFrameBudgetMillis;
+
+    private final int[] mPaneMeasureBaselines;
+
+    private final int[] mLayerBuildCounts;
+
+    PerformanceOverlay(Resources res, BuildLayerFrameLayout[] panes, PaneSnapshots snapshots) {
+        mPanes = panes;
+        mSnapshots = snapshots;
+        mPaneMeasureBaselines = new int[panes.length];
+        mLayerBuildCounts = new int[panes.length];
+        for (int i = 0; i < panes.length; i++) {
+            mLayerBuildCounts[i] = panes[i].getLayerBuildCount();
+        }
+
+        mPadding = SharedResources.dpToPx(res, 8);
+        mBarWidth = SharedResources.dpToPx(res, 3);
+        mGraphHeight = SharedResources.dpToPx(res, 48);
+        mLineHeight = SharedResources.dpToPx(res, 14);
+        mPaint.setTypeface(Typeface.MONOSPACE);
+        mPaint.setTextSize(SharedResources.dpToPx(res, 11));
+    }
+
+    void onMeasure(int transitionCount) {
+        sync(transitionCount);
+        mMeasureCount++;
+    }
+
+    void onLayout(int transitionCount) {
+        sync(transitionCount);
+        mLayoutCount++;
+    }
+
+    /**
+     * Resets the measure and layout counts when a new transition has started.
+     */
+    private void sync(int transitionCount) {
+        if (transitionCount != mTransitionCount) {
+            mTransitionCount = transitionCount;
+            mMeasureCount = 0;
+            mLayoutCount = 0;
+            for (int i = 0; i < mPanes.length; i++) {
+                mPaneMeasureBaselines[i] = mPanes[i].getMeasureCount();
+            }
+        }
+    }
+
+    /**
+     * @param moving             Whether a transition is running, frames are only added to the graph while it is.
+     * @param frameIntervalNanos The expected time between frames, frames slower than this are highlighted.
+     */
+    void draw(Canvas canvas, float offset, int pageState, boolean moving, int transitionCount,
+            long frameIntervalNanos) {
+        sync(transitionCount);
+        mFrameBudgetMillis = frameIntervalNanos / 1000000.0f;
+        final long now = System.nanoTime();
+        if (moving && mLastDrawNanos != 0) {
+            mFrameMillis[mNextFrame] = (now - mLastDrawNanos) / 1000000.0f;
+            mNextFrame = (mNextFrame + 1) % FRAME_COUNT;
+        }
+        mLastDrawNanos = moving ? now : 0;
+
+        final Paint paint = mPaint;
+        final int left = mPadding;
+        final int right = left + FRAME_COUNT * mBarWidth + 2 * mPadding;
+        final int graphTop = mPadding * 2;
+        final int textTop = graphTop + mGraphHeight + mPadding;
+        final int bottom = textTop + (3 + mPanes.length) * mLineHeight + mPadding;
+
+        paint.setColor(COLOR_BACKGROUND);
+        canvas.drawRect(left, mPadding, right, bottom, paint);
+        drawGraph(canvas, left + mPadding, graphTop);
+
+        int y = textTop + mLineHeight;
+        final StringBuilder text = mText;
+        text.setLength(0);
+        text.append("offset ").append((int) (offset * 1000)).append("  ").append(getStateName(pageState));
+        y = drawLine(canvas, left + mPadding, y, COLOR_TEXT);
+
+        text.append("since transition ").append(mTransitionCount).append(": measure ").append(mMeasureCount)
+                .append(" layout ").append(mLayoutCount);
+        y = drawLine(canvas, left + mPadding, y, COLOR_TEXT);
+
+        text.append("pane measures");
+        for (int i = 0; i < mPanes.length; i++) {
+            text.append(' ').append(mPanes[i].getMeasureCount() - mPaneMeasureBaselines[i]);
+        }
+        y = drawLine(canvas, left + mPadding, y, COLOR_TEXT);
+
+        for (int i = 0; i < mPanes.length; i++) {
+            final BuildLayerFrameLayout pane = mPanes[i];
+            final int layerBuilds = pane.getLayerBuildCount();
+            final boolean building = layerBuilds != mLayerBuildCounts[i];
+            mLayerBuildCounts[i] = layerBuilds;
+
+            final int color;
+            text.append(PANE_NAMES[i]).append(' ');
+            if (building) {
+                text.append("building layer");
+                color = COLOR_BUILDING;
+            } else if (mSnapshots.get(i) != null) {
+                text.append("snapshot");
+                color = COLOR_SNAPSHOT;
+            } else if (pane.getLayerType() == View.LAYER_TYPE_HARDWARE) {
+                text.append("hardware layer");
+                color = COLOR_LAYER;
+            } else {
+                text.append("no layer");
+                color = COLOR_IDLE;
+            }
+            text.append("  builds ").append(layerBuilds);
+            y = drawLine(canvas, left + mPadding, y, color);
+        }
+    }
+
+    private void drawGraph(Canvas canvas, int left, int top) {
+        final Paint paint = mPaint;
+        final float budget = mFrameBudgetMillis;
+        final float graphMaxMillis = budget * GRAPH_MAX_FRAMES;
+        final float scale = mGraphHeight / graphMaxMillis;
+        final int bottom = top + mGraphHeight;
+        for (int i = 0; i < FRAME_COUNT; i++) {
+            final float millis = mFrameMillis[(mNextFrame + i) % FRAME_COUNT];
+            if (millis == 0) {
+                continue;
+            }
+
+            if (millis <= budget * 1.2f) {
+                paint.setColor(COLOR_FRAME_OK);
+            } else if (millis <= budget * 2) {
+                paint.setColor(COLOR_FRAME_SLOW);
+            } else {
+                paint.setColor(COLOR_FRAME_DROPPED);
+            }
+            final int x = left + i * mBarWidth;
+            final float height = Math.min(millis, graphMaxMillis) * scale;
+            canvas.drawRect(x, bottom - height, x + mBarWidth - 1, bottom, paint);
+        }
+
+        paint.setColor(COLOR_TEXT);
+        final float budgetY = bottom - budget * scale;
+        canvas.drawLine(left, budgetY, left + FRAME_COUNT * mBarWidth, budgetY, paint);
+    }
+
+    /**
+     * Draws and clears {@link #mText}.
+     *
+     * @return The baseline of the next line.
+     */
+    private int drawLine(Canvas canvas, int x, int y, int color) {
+        mPaint.setColor(color);
+        canvas.drawText(mText, 0, mText.length(), x, y, mPaint);
+        mText.setLength(0);
+        return y + mLineHeight;
+    }
+
+    private static String getStateName(int pageState) {
+        switch (pageState) {
+            case ThreePaneLayout.STATE_LEFT_VISIBLE:
+                return "left visible";
+            case ThreePaneLayout.STATE_ANIMATE_RIGHT:
+                return "animate right";
+            case ThreePaneLayout.STATE_ANIMATE_LEFT:
+                return "animate left";
+            case ThreePaneLayout.STATE_RIGHT_VISIBLE:
+                return "right visible";
+            default:
+                return "state " + pageState;
+        }
+    }
+}
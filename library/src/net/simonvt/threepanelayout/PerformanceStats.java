@@ -0,0 +1,193 @@
+package net.simonvt.threepanelayout;
+
+import java.util.Locale;
+
+/**
+ * A snapshot of the performance counters of a {@link ThreePaneLayout}.
+ *
+ * @see ThreePaneLayout#getPerformanceStats(PerformanceStats)
+ */
+public class PerformanceStats {
+
+    public static final int INDEX_LEFT = 0;
+
+    public static final int INDEX_MIDDLE = 1;
+
+    public static final int INDEX_RIGHT = 2;
+
+    /**
+     * Number of animated transitions that have been started.
+     */
+    public int transitionCount;
+
+    /**
+     * Number of animation frames drawn during transitions.
+     */
+    public int frameCount;
+
+    /**
+     * Number of frames that were expected during transitions, but not drawn in time. Frames are expected at the
+     * refresh rate of the display.
+     */
+    public int droppedFrameCount;
+
+    /**
+     * Number of measured intervals between animation frames. The first frame of a transition has no interval.
+     */
+    public int frameIntervalCount;
+
+    /**
+     * Sum of the time between animation frames, in nanoseconds.
+     */
+    public long frameIntervalTotalNanos;
+
+    /**
+     * The longest time between two animation frames, in nanoseconds.
+     */
+    public long frameIntervalMaxNanos;
+
+    /**
+     * Number of hardware layer builds, per pane. A build is counted each time a pane switches to a hardware layer
+     * while attached.
+     */
+    public final int[] layerBuildCounts = new int[3];
+
+    /**
+     * Number of measure passes, per pane.
+     */
+    public final int[] measureCounts = new int[3];
+
+    /**
+     * Number of calls to {@code dispatchDraw()}.
+     */
+    public int dispatchDrawCount;
+
+    /**
+     * Time spent in {@code dispatchDraw()}, in nanoseconds.
+     */
+    public long dispatchDrawTotalNanos;
+
+    /**
+     * Number of times a pane layer was released because of memory pressure.
+     */
+    public int layerReleaseCount;
+
+    /**
+     * Number of times a released pane layer was built again.
+     */
+    public int layerRebuildCount;
+
+    /**
+     * Number of times an indicator bitmap was dropped because of memory pressure.
+     */
+    public int indicatorReleaseCount;
+
+    /**
+     * Number of times a dropped indicator bitmap was decoded again.
+     */
+    public int indicatorReloadCount;
+
+    public float getFramesPerTransition() {
+        return transitionCount > 0 ? (float) frameCount / transitionCount : 0.0f;
+    }
+
+    public float getAverageFrameIntervalMillis() {
+        return frameIntervalCount > 0 ? frameIntervalTotalNanos / 1000000.0f / frameIntervalCount : 0.0f;
+    }
+
+    public float getMaxFrameIntervalMillis() {
+        return frameIntervalMaxNanos / 1000000.0f;
+    }
+
+    /**
+     * Records the time between two animation frames.
+     *
+     * @param intervalNanos  The time since the previous frame.
+     * @param frameTimeNanos The expected time between frames.
+     */
+    void addFrameInterval(long intervalNanos, long frameTimeNanos) {
+        frameIntervalCount++;
+        frameIntervalTotalNanos += intervalNanos;
+        if (intervalNanos > frameIntervalMaxNanos) {
+            frameIntervalMaxNanos = intervalNanos;
+        }
+
+        final int frames = (int) ((intervalNanos + frameTimeNanos / 2) / frameTimeNanos);
+        if (frames > 1) {
+            droppedFrameCount += frames - 1;
+        }
+    }
+
+    public void set(PerformanceStats other) {
+        transitionCount = other.transitionCount;
+        frameCount = other.frameCount;
+        droppedFrameCount = other.droppedFrameCount;
+        frameIntervalCount = other.frameIntervalCount;
+        frameIntervalTotalNanos = other.frameIntervalTotalNanos;
+        frameIntervalMaxNanos = other.frameIntervalMaxNanos;
+        System.arraycopy(other.layerBuildCounts, 0, layerBuildCounts, 0, layerBuildCounts.length);
+        System.arraycopy(other.measureCounts, 0, measureCounts, 0, measureCounts.length);
+        dispatchDrawCount = other.dispatchDrawCount;
+        dispatchDrawTotalNanos = other.dispatchDrawTotalNanos;
+        layerReleaseCount = other.layerReleaseCount;
+        layerRebuildCount = other.layerRebuildCount;
+        indicatorReleaseCount = other.indicatorReleaseCount;
+        indicatorReloadCount = other.indicatorReloadCount;
+    }
+
+    public void reset() {
+        transitionCount = 0;
+        frameCount = 0;
+        droppedFrameCount = 0;
+        frameIntervalCount = 0;
+        frameIntervalTotalNanos = 0;
+        frameIntervalMaxNanos = 0;
+        for (int i = 0; i < layerBuildCounts.length; i++) {
+            layerBuildCounts[i] = 0;
+            measureCounts[i] = 0;
+        }
+        dispatchDrawCount = 0;
+        dispatchDrawTotalNanos = 0;
+        layerReleaseCount = 0;
+        layerRebuildCount = 0;
+        indicatorReleaseCount = 0;
+        indicatorReloadCount = 0;
+    }
+
+    /**
+     * Appends a human readable dump of the stats, suitable for bug reports.
+     */
+    public void dump(StringBuilder sb) {
+        sb.append("ThreePaneLayout performance stats:\n");
+        sb.append("  Transitions: ").append(transitionCount).append('\n');
+        sb.append("  Frames: ").append(frameCount)
+                .append(String.format(Locale.US, " (%.1f per transition)", getFramesPerTransition())).append('\n');
+        sb.append("  Dropped frames: ").append(droppedFrameCount).append('\n');
+        sb.append(String.format(Locale.US, "  Frame interval: avg %.2fms, max %.2fms",
+                getAverageFrameIntervalMillis(), getMaxFrameIntervalMillis())).append('\n');
+        appendPerPane(sb, "  Layer builds: ", layerBuildCounts);
+        appendPerPane(sb, "  Measure passes: ", measureCounts);
+        sb.append("  dispatchDraw: ").append(dispatchDrawCount)
+                .append(String.format(Locale.US, " calls, %.2fms total", dispatchDrawTotalNanos / 1000000.0f))
+                .append('\n');
+        sb.append("  Layer releases: ").append(layerReleaseCount)
+                .append(", rebuilds: ").append(layerRebuildCount).append('\n');
+        sb.append("  Indicator releases: ").append(indicatorReleaseCount)
+                .append(", reloads: ").append(indicatorReloadCount).append('\n');
+    }
+
+    private static void appendPerPane(StringBuilder sb, String label, int[] counts) {
+        sb.append(label)
+                .append("left=").append(counts[INDEX_LEFT])
+                .append(" middle=").append(counts[INDEX_MIDDLE])
+                .append(" right=").append(counts[INDEX_RIGHT])
+                .append('\n');
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        dump(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package net.simonvt.threepanelayout;
+
+import android.view.animation.AnimationUtils;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
+
+/**
+ * State of a transition driven by an external progress source. Keeps the most recent offsets, so the transition can
+ * settle at the velocity it was moving with. Samples older than {@link #HORIZON_MILLIS} are ignored, so a gesture
+ * that stopped before it was released settles without velocity.
+ */
+final class ProgressTransition {
+
+    /**
+     * Starts at twice the average speed, so a settle can pick up the velocity of the progress source.
+     */
+    static final Interpolator SETTLE_INTERPOLATOR = new DecelerateInterpolator();
+
+    /**
+     * Velocity, in offset per millisecond, above which a settle continues in the direction the progress was moving
+     * instead of returning to the nearest side.
+     */
+    private static final float SETTLE_MIN_VELOCITY = 0.001f;
+
+    private static final int SAMPLE_COUNT = 4;
+
+    private static final long HORIZON_MILLIS = 100;
+
+    private final float[] mOffsets = new float[SAMPLE_COUNT];
+
+    private final long[] mTimes = new long[SAMPLE_COUNT];
+
+    private int mCount;
+
+    private int mNext;
+
+    private boolean mActive;
+
+    void begin() {
+        mActive = true;
+        mCount = 0;
+        mNext = 0;
+    }
+
+    boolean isActive() {
+        return mActive;
+    }
+
+    /**
+     * Records a new progress.
+     *
+     * @return The offset for the progress.
+     */
+    float add(float progress) {
+        final float offset = Math.max(0.0f, Math.min(1.0f, progress));
+        mOffsets[mNext] = offset;
+        mTimes[mNext] = AnimationUtils.currentAnimationTimeMillis();
+        mNext = (mNext + 1) % SAMPLE_COUNT;
+        if (mCount < SAMPLE_COUNT) mCount++;
+        return offset;
+    }
+
+    /**
+     * Ends the transition.
+     *
+     * @return The velocity it ended with in offset per millisecond, or 0 if it wasn't active.
+     */
+    float end() {
+        final float velocity = mActive ? getVelocity() : 0.0f;
+        mActive = false;
+        return velocity;
+    }
+
+    /**
+     * Whether a settle at the given offset ends with the right pane showing.
+     */
+    boolean settlesRight(float offset) {
+        final float velocity = getVelocity();
+        return Math.abs(velocity) >= SETTLE_MIN_VELOCITY ? velocity > 0 : offset >= 0.5f;
+    }
+
+    /**
+     * Returns the duration of a {@link #SETTLE_INTERPOLATOR} animation over {@code delta} that starts at
+     * {@code velocity}, or {@link Integer#MAX_VALUE} if the velocity isn't towards the target.
+     */
+    static int getSettleDuration(float delta, float velocity) {
+        return velocity * delta > 0 ? (int) (2 * Math.abs(delta) / Math.abs(velocity)) : Integer.MAX_VALUE;
+    }
+
+    private float getVelocity() {
+        final int newest = (mNext + SAMPLE_COUNT - 1) % SAMPLE_COUNT;
+        if (mCount < 2 || AnimationUtils.currentAnimationTimeMillis() - mTimes[newest] > HORIZON_MILLIS) {
+            return 0.0f;
+        }
+
+        int oldest = newest;
+        for (int i = 1; i < mCount; i++) {
+            final int index = (newest + SAMPLE_COUNT - i) % SAMPLE_COUNT;
+            if (mTimes[newest] - mTimes[index] > HORIZON_MILLIS) {
+                break;
+            }
+            oldest = index;
+        }
+
+        final long dt = mTimes[newest] - mTimes[oldest];
+        return dt > 0 ? (mOffsets[newest] - mOffsets[oldest]) / dt : 0.0f;
+    }
+}
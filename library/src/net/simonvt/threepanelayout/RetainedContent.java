@@ -0,0 +1,106 @@
+package net.simonvt.threepanelayout;
+
+import android.content.Context;
+import android.content.MutableContextWrapper;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+
+/**
+ * The pane content of a layout that retains it across configuration changes. Content is handed over to the next
+ * layout through {@link PaneContentRetainer}.
+ */
+final class RetainedContent {
+
+    private static final String TAG = "ThreePaneLayout";
+
+    /**
+     * Context pane layouts are inflated with. Its base context is swapped for the one of the new layout when the
+     * content is adopted.
+     */
+    private MutableContextWrapper mContentContext;
+
+    /**
+     * Panes with content adopted from a previous layout, that the restore listener hasn't been told about yet.
+     */
+    private int mRestoredPanes;
+
+    /**
+     * Returns an inflater for pane layouts, which inflates them with a context that can be moved to a new activity.
+     */
+    LayoutInflater getInflater(Context context) {
+        if (mContentContext == null) {
+            mContentContext = new MutableContextWrapper(context);
+        }
+        return LayoutInflater.from(context).cloneInContext(mContentContext);
+    }
+
+    /**
+     * Hands the content of each pane over to the next layout with the same id. Only content inflated with the context
+     * from {@link #getInflater(Context)} is handed over, other content references the old activity and is dropped.
+     */
+    void retain(int id, ViewGroup[] panes) {
+        final View[] content = new View[panes.length];
+        for (int i = 0; i < panes.length; i++) {
+            if (panes[i].getChildCount() != 1) {
+                continue;
+            }
+
+            final View child = panes[i].getChildAt(0);
+            if (mContentContext != null && child.getContext() == mContentContext) {
+                content[i] = child;
+            } else {
+                Log.w(TAG, "Not retaining content of pane " + (1 << i)
+                        + ", it wasn't inflated from a pane layout and would leak the activity");
+            }
+        }
+
+        PaneContentRetainer.retain(id, content);
+    }
+
+    /**
+     * Adds content retained by a previous layout to a pane. Only configuration dependent state is refreshed, the
+     * content isn't inflated or rebuilt.
+     *
+     * @param index   Index of the pane.
+     * @param context Context of the new layout.
+     */
+    void restore(ViewGroup[] panes, int index, View content, Context context) {
+        final ViewParent oldPane = content.getParent();
+        if (oldPane instanceof ViewGroup) {
+            ((ViewGroup) oldPane).removeView(content);
+        }
+
+        final Context contentContext = content.getContext();
+        if (contentContext instanceof MutableContextWrapper) {
+            mContentContext = (MutableContextWrapper) contentContext;
+            mContentContext.setBaseContext(context);
+        }
+
+        panes[index].removeAllViews();
+        panes[index].addView(content);
+        content.dispatchConfigurationChanged(context.getResources().getConfiguration());
+        mRestoredPanes |= 1 << index;
+    }
+
+    /**
+     * Tells the listener about content that was restored since the last call.
+     */
+    void dispatchRestored(ViewGroup[] panes, ThreePaneLayout.OnPaneContentRestoredListener listener) {
+        if (mRestoredPanes == 0 || listener == null) {
+            return;
+        }
+
+        final int restoredPanes = mRestoredPanes;
+        mRestoredPanes = 0;
+        for (int i = 0; i < panes.length; i++) {
+            final int pane = 1 << i;
+            final View content = panes[i].getChildAt(0);
+            if ((restoredPanes & pane) != 0 && content != null) {
+                listener.onPaneContentRestored(pane, content);
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package net.simonvt.threepanelayout;
+
+import android.view.ViewTreeObserver;
+
+/**
+ * Moves the active indicators along with the active views when a scroll container they're in is scrolled. Only
+ * listens for scroll changes while at least one active view is inside a container that can scroll, and that
+ * container is shown in a pane that is on screen. This is checked again when the layout is laid out and when a
+ * transition ends, so the listener is added back once a hidden container is shown again.
+ */
+final class ScrollTracker implements ViewTreeObserver.OnScrollChangedListener {
+
+    private final ThreePaneLayout mLayout;
+
+    private final ActiveIndicators mIndicators;
+
+    /**
+     * Advances the indicator animations, which are moved to the new positions when they are.
+     */
+    private final Runnable mIndicatorRunnable;
+
+    private boolean mRegistered;
+
+    private boolean mInvalidatePending;
+
+    private final Runnable mInvalidateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mInvalidatePending = false;
+            mIndicators.invalidate(mLayout);
+        }
+    };
+
+    ScrollTracker(ThreePaneLayout layout, ActiveIndicators indicators, Runnable indicatorRunnable) {
+        mLayout = layout;
+        mIndicators = indicators;
+        mIndicatorRunnable = indicatorRunnable;
+    }
+
+    /**
+     * Resolves the scroll containers of the active views, and starts or stops listening for scroll changes.
+     */
+    void update() {
+        final boolean track = mIndicators.updateScrollContainers(mLayout) && mLayout.getWindowToken() != null;
+        if (track != mRegistered) {
+            final ViewTreeObserver observer = mLayout.getViewTreeObserver();
+            if (track) {
+                observer.addOnScrollChangedListener(this);
+            } else {
+                observer.removeOnScrollChangedListener(this);
+            }
+            mRegistered = track;
+        }
+    }
+
+    /**
+     * Stops listening, called when the layout is detached.
+     */
+    void stop() {
+        if (mRegistered) {
+            mLayout.getViewTreeObserver().removeOnScrollChangedListener(this);
+            mRegistered = false;
+        }
+        mLayout.removeCallbacks(mInvalidateRunnable);
+        mInvalidatePending = false;
+    }
+
+    @Override
+    public void onScrollChanged() {
+        if (!mInvalidatePending && mIndicators.updateTrackedTops()) {
+            if (mIndicators.isAnimating()) {
+                mLayout.removeCallbacks(mIndicatorRunnable);
+                mLayout.postOnAnimation(mIndicatorRunnable);
+            } else {
+                mInvalidatePending = true;
+                mLayout.postOnAnimation(mInvalidateRunnable);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package net.simonvt.threepanelayout;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.GradientDrawable;
+import android.util.SparseIntArray;
+
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Immutable drawing resources shared by all layouts in the process: the drop shadow, indicator bitmaps decoded from
+ * resources and dimensions converted from dp. Bitmaps are reference counted, and dropped once no layout uses them.
+ * The shadow and dimensions are dropped when the last attached layout is detached.
+ * <p/>
+ * Only accessed from the main thread.
+ */
+final class SharedResources {
+
+    private static int sAttachedCount;
+
+    private static Drawable.ConstantState sShadowState;
+
+    /**
+     * Density {@link #sDimensions} was computed for.
+     */
+    private static float sDensity;
+
+    /**
+     * Pixel sizes keyed by dp.
+     */
+    private static final SparseIntArray sDimensions = new SparseIntArray();
+
+    private static final HashMap<Long, SharedBitmap> sBitmaps = new HashMap<Long, SharedBitmap>();
+
+    private static final class SharedBitmap {
+
+        final Bitmap mBitmap;
+
+        int mRefCount;
+
+        SharedBitmap(Bitmap bitmap) {
+            mBitmap = bitmap;
+        }
+    }
+
+    private SharedResources() {
+    }
+
+    static void onAttached() {
+        sAttachedCount++;
+    }
+
+    static void onDetached() {
+        if (--sAttachedCount == 0) {
+            sShadowState = null;
+            sDimensions.clear();
+        }
+    }
+
+    /**
+     * Returns a new drop shadow drawable. All shadows share their gradient state, only the bounds are per drawable.
+     */
+    static Drawable newShadow(Resources res) {
+        if (sShadowState == null) {
+            final Drawable shadow = new GradientDrawable(GradientDrawable.Orientation.RIGHT_LEFT, new int[] {
+                    0xFF000000,
+                    0x00000000,
+            });
+            sShadowState = shadow.getConstantState();
+            return shadow;
+        }
+
+        return sShadowState.newDrawable(res);
+    }
+
+    static int dpToPx(Resources res, int dp) {
+        final float density = res.getDisplayMetrics().density;
+        if (density != sDensity) {
+            sDensity = density;
+            sDimensions.clear();
+        }
+
+        int px = sDimensions.get(dp, -1);
+        if (px == -1) {
+            px = (int) (density * dp + 0.5f);
+            sDimensions.put(dp, px);
+        }
+
+        return px;
+    }
+
+    /**
+     * Returns the bitmap decoded from a drawable resource for the current density, decoding it only if no other
+     * layout holds it. Must be balanced by a call to {@link #releaseBitmap(Bitmap)}.
+     *
+     * @return The bitmap, or null if the resource couldn't be decoded.
+     */
+    static Bitmap acquireBitmap(Resources res, int resId) {
+        final Long key = ((long) res.getDisplayMetrics().densityDpi << 32) | (resId & 0xFFFFFFFFL);
+        SharedBitmap shared = sBitmaps.get(key);
+        if (shared == null) {
+            final Bitmap bitmap = BitmapFactory.decodeResource(res, resId);
+            if (bitmap == null) {
+                return null;
+            }
+
+            shared = new SharedBitmap(bitmap);
+            sBitmaps.put(key, shared);
+        }
+
+        shared.mRefCount++;
+        return shared.mBitmap;
+    }
+
+    /**
+     * Releases a bitmap returned by {@link #acquireBitmap(Resources, int)}. The bitmap isn't recycled, as a layout
+     * might still draw it before it's redrawn, it's just no longer shared.
+     */
+    static void releaseBitmap(Bitmap bitmap) {
+        for (Iterator<SharedBitmap> it = sBitmaps.values().iterator(); it.hasNext(); ) {
+            final SharedBitmap shared = it.next();
+            if (shared.mBitmap == bitmap) {
+                if (--shared.mRefCount == 0) {
+                    it.remove();
+                }
+                return;
+            }
+        }
+    }
+}
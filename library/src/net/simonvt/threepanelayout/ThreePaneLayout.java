@@ -1,25 +1,30 @@
 package net.simonvt.threepanelayout;
 
 import android.content.Context;
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
-import android.graphics.drawable.GradientDrawable;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
 import android.view.ViewParent;
-import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.Interpolator;
-import android.widget.FrameLayout;
+import android.widget.AbsListView;
+
+import java.io.File;
+import java.io.IOException;
 
 public class ThreePaneLayout extends ViewGroup {
 
@@ -39,11 +44,53 @@ public class ThreePaneLayout extends ViewGroup {
 
     private static final int DEFAULT_DROP_SHADOW_WIDTH_DP = 6;
 
+    /**
+     * The collapsible middle pane is measured at its collapsed width while the right pane is visible.
+     */
+    public static final int COLLAPSE_MODE_RESIZE = 0;
+
+    /**
+     * The collapsible middle pane keeps its expanded width, and is collapsed by the right pane covering it. Its
+     * content is never re-measured during a transition.
+     */
+    public static final int COLLAPSE_MODE_CLIP = 1;
+
+    /**
+     * Touches are dispatched to the panes while they're moving.
+     */
+    public static final int TOUCH_GATING_NONE = 0;
+
+    /**
+     * Touches that start while the panes are moving are dropped.
+     */
+    public static final int TOUCH_GATING_DROP = 1;
+
+    /**
+     * Taps that start while the panes are moving are held back, and dispatched once the panes have stopped moving.
+     * Other gestures are dropped.
+     */
+    public static final int TOUCH_GATING_QUEUE = 2;
+
+    static final int PANE_COUNT = 3;
+
+    private static final int INDICATOR_LEFT = 0;
+
+    private static final int INDICATOR_MIDDLE = 1;
+
+    private static final int INDICATOR_RIGHT = 2;
+
+    static final int INDICATOR_COUNT = 3;
+
     /**
      * The time between each frame.
      */
     protected static final int ANIMATION_DELAY = 1000 / 60;
 
+    /**
+     * The expected time between each frame, in nanoseconds, when the display doesn't report its refresh rate.
+     */
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
     /**
      * State when the layout is not animating and the left pane is visible.
      */
@@ -64,19 +111,49 @@ public class ThreePaneLayout extends ViewGroup {
      */
     public static final int STATE_RIGHT_VISIBLE = 4;
 
+    /**
+     * No part of the pane is on screen.
+     */
+    public static final int PANE_HIDDEN = 0;
+
+    /**
+     * Part of the pane is on screen.
+     */
+    public static final int PANE_PARTIALLY_VISIBLE = 1;
+
+    /**
+     * The whole pane is on screen.
+     */
+    public static final int PANE_VISIBLE = 2;
+
     private static final Interpolator SMOOTH_INTERPOLATOR = new SmoothInterpolator();
 
     private static final Interpolator INDICATOR_INTERPOLATOR = new AccelerateInterpolator();
 
-    private FrameLayout mLeftPane;
+    private BuildLayerFrameLayout mLeftPane;
+
+    private BuildLayerFrameLayout mMiddlePane;
+
+    private BuildLayerFrameLayout mRightPane;
+
+    private BuildLayerFrameLayout[] mPanes;
 
-    private FrameLayout mMiddlePane;
+    private PaneOcclusion mOcclusion;
 
-    private FrameLayout mRightPane;
+    private PaneTransform mPaneTransform;
+
+    private final PaneTransform.Coefficients mTransformCoefficients = new PaneTransform.Coefficients();
+
+    /**
+     * The width the transform coefficients were computed for, or -1 if they need to be computed again.
+     */
+    private int mTransformWidth = -1;
 
     private float mOffset;
 
-    private boolean mLayerTypeHardware;
+    private final PaneSnapshots mSnapshots = new PaneSnapshots(PANE_COUNT);
+
+    private final TransitionDrawing mTransitionDrawing;
 
     private FloatScroller mScroller;
 
@@ -99,69 +176,95 @@ public class ThreePaneLayout extends ViewGroup {
 
     private int mMiddlePaneExpandedWidth;
 
-    private int mVisiblePanes = PANE_LEFT | PANE_MIDDLE;
+    private int mMiddlePaneCollapseMode = COLLAPSE_MODE_RESIZE;
 
-    private OnPaneStateChangeListener mPaneStateChangeListener;
+    private final PaneResize mResize = new PaneResize();
 
-    private int mPageState = STATE_LEFT_VISIBLE;
+    /**
+     * Resource the static layout breakpoint is read from, so it can be resolved again when the configuration changes.
+     */
+    private int mStaticLayoutMinWidthResId;
+
+    /**
+     * The minimum width at which all three panes are laid out side by side, or 0 to always slide between panes.
+     */
+    private int mStaticLayoutMinWidth;
+
+    /**
+     * The width {@link #mStaticLayout} was last resolved for.
+     */
+    private int mStaticLayoutResolvedWidth = -1;
 
-    private View mLeftActiveView;
+    private boolean mStaticLayout;
 
-    private Bitmap mLeftActiveIndicator;
+    private int mVisiblePanes = PANE_LEFT | PANE_MIDDLE;
+
+    private OnPaneStateChangeListener mPaneStateChangeListener;
 
-    private final Rect mLeftActiveRect = new Rect();
+    private final PaneVisibilityTracker mPaneVisibility = new PaneVisibilityTracker(PANE_COUNT);
 
-    private int mLeftActivePosition;
+    private boolean mRetainPaneContent;
 
-    private int mLeftIndicatorStartPos;
+    private final RetainedContent mRetainedContent = new RetainedContent();
 
-    private int mLeftIndicatorTop;
+    private OnPaneContentRestoredListener mPaneContentRestoredListener;
 
-    private float mLeftIndicatorOffset;
+    private int mPageState = STATE_LEFT_VISIBLE;
 
-    private final FloatScroller mLeftIndicatorScroller = new FloatScroller(SMOOTH_INTERPOLATOR);
+    private final ActiveIndicators mIndicators = new ActiveIndicators(this, INDICATOR_COUNT, SMOOTH_INTERPOLATOR,
+            INDICATOR_ANIM_DURATION);
 
-    private final Runnable mLeftIndicatorRunnable = new Runnable() {
+    private final Runnable mIndicatorRunnable = new Runnable() {
         @Override
         public void run() {
-            animateLeftIndicatorInvalidate();
+            animateIndicatorsInvalidate();
         }
     };
 
-    private boolean mLeftIndicatorAnimating;
+    private final ScrollTracker mScrollTracker = new ScrollTracker(this, mIndicators, mIndicatorRunnable);
 
-    private View mMiddleActiveView;
+    private boolean mComponentCallbacksRegistered;
 
-    private Bitmap mMiddleActiveIndicator;
+    private final TouchGate mTouchGate;
 
-    private final Rect mMiddleActiveRect = new Rect();
+    /**
+     * Transition driven through {@link #setTransitionProgress(float)}.
+     */
+    private final ProgressTransition mProgress = new ProgressTransition();
+
+    private final PerformanceStats mStats = new PerformanceStats();
+
+    /**
+     * Time the previous animation frame was drawn at, or 0 if no transition is running.
+     */
+    private long mLastFrameNanos;
 
-    private int mMiddleActivePosition;
+    /**
+     * The expected time between each frame, from the refresh rate of the display.
+     */
+    private long mFrameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
 
-    private int mMiddleIndicatorStartPos;
+    private final TimelineRecording mTimeline = new TimelineRecording();
 
-    private int mMiddleIndicatorTop;
+    private IdleMonitor mIdleMonitor;
 
-    private float mMiddleIndicatorOffset;
+    private OnIdleViolationListener mIdleViolationListener;
 
-    private final FloatScroller mMiddleIndicatorScroller = new FloatScroller(SMOOTH_INTERPOLATOR);
+    private PerformanceOverlay mOverlay;
 
-    private final Runnable mMiddleIndicatorRunnable = new Runnable() {
+    private final ComponentCallbacks2 mComponentCallbacks = new ComponentCallbacks2() {
         @Override
-        public void run() {
-            animateMiddleIndicatorInvalidate();
+        public void onTrimMemory(int level) {
+            trimMemory(level);
         }
-    };
 
-    private boolean mMiddleIndicatorAnimating;
+        @Override
+        public void onLowMemory() {
+            trimMemory(TRIM_MEMORY_COMPLETE);
+        }
 
-    private ViewTreeObserver.OnScrollChangedListener mScrollChangedListener
-            = new ViewTreeObserver.OnScrollChangedListener() {
         @Override
-        public void onScrollChanged() {
-            if (mLeftActiveView != null || mMiddleActiveView != null) {
-                invalidate();
-            }
+        public void onConfigurationChanged(Configuration newConfig) {
         }
     };
 
@@ -170,6 +273,40 @@ public class ThreePaneLayout extends ViewGroup {
         void onPaneStateChange(int oldState, int newState);
     }
 
+    public interface OnPaneVisibilityChangeListener {
+
+        /**
+         * Called when a pane is moved on or off screen, or becomes partially covered or uncovered.
+         *
+         * @param pane       One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+         * @param visibility One of {@link #PANE_HIDDEN}, {@link #PANE_PARTIALLY_VISIBLE} or {@link #PANE_VISIBLE}.
+         */
+        void onPaneVisibilityChange(int pane, int visibility);
+    }
+
+    public interface OnIdleViolationListener {
+
+        /**
+         * Called when the layout schedules work while it should be idle.
+         *
+         * @param source The work and the calls that led to it.
+         * @param count  Number of times this source has been reported since idle strict mode was enabled.
+         */
+        void onIdleViolation(String source, int count);
+    }
+
+    public interface OnPaneContentRestoredListener {
+
+        /**
+         * Called when content retained across a configuration change has been added to a pane. Resources that
+         * depend on the configuration, and were loaded when the content was created, should be refreshed here.
+         *
+         * @param pane    One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+         * @param content The retained content.
+         */
+        void onPaneContentRestored(int pane, View content);
+    }
+
     public ThreePaneLayout(Context context) {
         this(context, null);
     }
@@ -192,20 +329,30 @@ public class ThreePaneLayout extends ViewGroup {
         mRightPane = new BuildLayerFrameLayout(context);
         addView(mRightPane, LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
 
+        mPanes = new BuildLayerFrameLayout[] {
+                mLeftPane, mMiddlePane, mRightPane,
+        };
+        mOcclusion = new PaneOcclusion(mPanes);
+        mTransitionDrawing = new TransitionDrawing(this, mPanes, mSnapshots, mStats);
+        mTouchGate = new TouchGate(this, mPanes, ViewConfiguration.get(context).getScaledTouchSlop());
+
         TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ThreePaneLayout, R.attr.threePaneLayoutStyle,
                 defStyle);
 
-        final int leftPaneLayout = a.getResourceId(R.styleable.ThreePaneLayout_leftPaneLayout, -1);
-        if (leftPaneLayout != -1) {
-            setLeftPaneLayout(leftPaneLayout);
-        }
-        final int middlePaneLayout = a.getResourceId(R.styleable.ThreePaneLayout_middlePaneLayout, -1);
-        if (middlePaneLayout != -1) {
-            setMiddlePaneLayout(middlePaneLayout);
-        }
-        final int rightPaneLayout = a.getResourceId(R.styleable.ThreePaneLayout_rightPaneLayout, -1);
-        if (rightPaneLayout != -1) {
-            setRightPaneLayout(rightPaneLayout);
+        mRetainPaneContent = a.getBoolean(R.styleable.ThreePaneLayout_retainPaneContent, false);
+        final View[] retained = mRetainPaneContent && getId() != NO_ID ? PaneContentRetainer.claim(getId()) : null;
+
+        final int[] paneLayouts = new int[] {
+                a.getResourceId(R.styleable.ThreePaneLayout_leftPaneLayout, -1),
+                a.getResourceId(R.styleable.ThreePaneLayout_middlePaneLayout, -1),
+                a.getResourceId(R.styleable.ThreePaneLayout_rightPaneLayout, -1),
+        };
+        for (int i = 0; i < PANE_COUNT; i++) {
+            if (retained != null && retained[i] != null) {
+                mRetainedContent.restore(mPanes, i, retained[i], context);
+            } else if (paneLayouts[i] != -1) {
+                setPaneContent(i, paneLayouts[i], null);
+            }
         }
 
         mLeftPaneWidth = a.getDimensionPixelSize(R.styleable.ThreePaneLayout_leftPaneWidth, dpToPx(250));
@@ -215,308 +362,801 @@ public class ThreePaneLayout extends ViewGroup {
         mMiddlePaneCollapsedWidth = a.getDimensionPixelSize(R.styleable.ThreePaneLayout_middlePaneCollapsedWidth,
                 dpToPx(450));
 
+        mMiddlePaneCollapseMode = a.getInt(R.styleable.ThreePaneLayout_middlePaneCollapseMode, COLLAPSE_MODE_RESIZE);
+
+        mStaticLayoutMinWidthResId = a.getResourceId(R.styleable.ThreePaneLayout_staticLayoutMinWidth, 0);
+        mStaticLayoutMinWidth = a.getDimensionPixelSize(R.styleable.ThreePaneLayout_staticLayoutMinWidth, 0);
+
         final int leftIndicatorResId = a.getResourceId(R.styleable.ThreePaneLayout_leftActiveIndicator, 0);
         if (leftIndicatorResId != 0) {
-            mLeftActiveIndicator = BitmapFactory.decodeResource(getResources(), leftIndicatorResId);
+            setActiveIndicatorResource(PANE_LEFT, leftIndicatorResId);
         }
 
         final int middleIndicatorResId = a.getResourceId(R.styleable.ThreePaneLayout_middleActiveIndicator, 0);
         if (middleIndicatorResId != 0) {
-            mMiddleActiveIndicator = BitmapFactory.decodeResource(getResources(), middleIndicatorResId);
+            setActiveIndicatorResource(PANE_MIDDLE, middleIndicatorResId);
+        }
+
+        final int rightIndicatorResId = a.getResourceId(R.styleable.ThreePaneLayout_rightActiveIndicator, 0);
+        if (rightIndicatorResId != 0) {
+            setActiveIndicatorResource(PANE_RIGHT, rightIndicatorResId);
         }
 
         a.recycle();
 
-        mShadow = new GradientDrawable(GradientDrawable.Orientation.RIGHT_LEFT, new int[] {
-                0xFF000000,
-                0x00000000,
-        });
-        mDropShadowWidth = (int) (getResources().getDisplayMetrics().density * DEFAULT_DROP_SHADOW_WIDTH_DP + 0.5f);
+        mShadow = SharedResources.newShadow(getResources());
+        mDropShadowWidth = dpToPx(DEFAULT_DROP_SHADOW_WIDTH_DP);
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        getViewTreeObserver().addOnScrollChangedListener(mScrollChangedListener);
+        final Context appContext = getContext().getApplicationContext();
+        if (!mComponentCallbacksRegistered && appContext != null) {
+            appContext.registerComponentCallbacks(mComponentCallbacks);
+            mComponentCallbacksRegistered = true;
+        }
+        SharedResources.onAttached();
+        final float refreshRate = ((WindowManager) getContext().getSystemService(Context.WINDOW_SERVICE))
+                .getDefaultDisplay().getRefreshRate();
+        mFrameIntervalNanos = refreshRate >= 1.0f ? (long) (1000000000L / refreshRate) : DEFAULT_FRAME_INTERVAL_NANOS;
+        mScrollTracker.update();
+        mRetainedContent.dispatchRestored(mPanes, mPaneContentRestoredListener);
     }
 
     @Override
     protected void onDetachedFromWindow() {
-        getViewTreeObserver().removeOnScrollChangedListener(mScrollChangedListener);
+        if (mComponentCallbacksRegistered) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mComponentCallbacks);
+            mComponentCallbacksRegistered = false;
+        }
+        mScrollTracker.stop();
+        mTouchGate.clear();
+        mTransitionDrawing.releaseSnapshots();
+        mSnapshots.trimPool();
+        mIndicators.releaseResourceBitmaps();
+        SharedResources.onDetached();
+        if (mRetainPaneContent && getId() != NO_ID && PaneContentRetainer.isChangingConfigurations(getContext())) {
+            mRetainedContent.retain(getId(), mPanes);
+        }
         super.onDetachedFromWindow();
     }
 
-    private int dpToPx(int dp) {
-        return (int) (getResources().getDisplayMetrics().density * dp + 0.5f);
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        if (mStaticLayoutMinWidthResId != 0) {
+            setStaticLayoutMinWidth(getResources().getDimensionPixelSize(mStaticLayoutMinWidthResId));
+        }
     }
 
-    public void setLeftPaneLayout(int layoutId) {
-        mLeftPane.removeAllViews();
-        LayoutInflater.from(getContext()).inflate(layoutId, mLeftPane);
-    }
+    /**
+     * Releases memory that can be recreated when it's needed again. Layers and drawing caches of panes that aren't
+     * visible are released while the app is running, and those of all panes, along with the indicator bitmaps
+     * decoded from resources, once the UI is hidden.
+     */
+    private void trimMemory(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return;
+        }
 
-    public void setMiddlePaneLayout(int layoutId) {
-        mMiddlePane.removeAllViews();
-        LayoutInflater.from(getContext()).inflate(layoutId, mMiddlePane);
-    }
+        // Snapshots in use are returned to the pool when the transition ends, only pooled ones can go.
+        mSnapshots.trimPool();
 
-    public void setRightPaneLayout(int layoutId) {
-        mRightPane.removeAllViews();
-        LayoutInflater.from(getContext()).inflate(layoutId, mRightPane);
-    }
+        final boolean uiHidden = level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+        if (!uiHidden && (mStaticLayout || !isIdle())) {
+            // Every pane is, or might be, on screen.
+            return;
+        }
 
-    public void showLeftPane() {
-        showLeftPane(true);
-    }
+        final int releasePanes = uiHidden ? PANE_LEFT | PANE_MIDDLE | PANE_RIGHT : ~mVisiblePanes;
+        for (int i = 0; i < PANE_COUNT; i++) {
+            if ((releasePanes & (1 << i)) != 0 && mPanes[i].releaseLayer()) {
+                mStats.layerReleaseCount++;
+            }
+        }
 
-    public void showLeftPane(boolean animate) {
-        mVisiblePanes = PANE_LEFT | PANE_MIDDLE;
-        requestLayout();
-        animateOffsetTo(0.0f, animate);
-        if (animate) setPageState(STATE_ANIMATE_LEFT);
+        if (uiHidden) {
+            mStats.indicatorReleaseCount += mIndicators.releaseResourceBitmaps();
+        }
     }
 
-    public void showRightPane() {
-        showRightPane(true);
+    /**
+     * Returns how often a pane hardware layer has been released because of memory pressure.
+     */
+    public int getLayerReleaseCount() {
+        return mStats.layerReleaseCount;
     }
 
-    public void showRightPane(boolean animate) {
-        mVisiblePanes = PANE_RIGHT;
-        if (mMiddlePaneCollapsible) mVisiblePanes |= PANE_MIDDLE;
-        requestLayout();
-        animateOffsetTo(1.0f, animate);
-        if (animate) setPageState(STATE_ANIMATE_RIGHT);
+    /**
+     * Returns how often a released pane layer has been built again.
+     */
+    public int getLayerRebuildCount() {
+        return mStats.layerRebuildCount;
     }
 
-    public boolean isLeftPaneVisible() {
-        return (mVisiblePanes & PANE_LEFT) != 0;
+    /**
+     * Returns how often an indicator bitmap has been dropped because of memory pressure.
+     */
+    public int getIndicatorReleaseCount() {
+        return mStats.indicatorReleaseCount;
     }
 
-    public boolean isMiddlePaneShowing() {
-        return (mVisiblePanes & PANE_MIDDLE) != 0;
+    /**
+     * Returns how often a dropped indicator bitmap has been decoded again.
+     */
+    public int getIndicatorReloadCount() {
+        return mStats.indicatorReloadCount;
     }
 
-    public boolean isRightPaneVisible() {
-        return (mVisiblePanes & PANE_RIGHT) != 0;
+    /**
+     * Copies the performance counters collected since the layout was created, or since
+     * {@link #resetPerformanceStats()} was last called, into {@code out}. Nothing is allocated.
+     */
+    public void getPerformanceStats(PerformanceStats out) {
+        out.set(mStats);
+        for (int i = 0; i < PANE_COUNT; i++) {
+            final BuildLayerFrameLayout pane = mPanes[i];
+            out.layerBuildCounts[i] = pane.getLayerBuildCount();
+            out.measureCounts[i] = pane.getMeasureCount();
+        }
     }
 
-    public boolean isMiddlePaneCollapsible() {
-        return mMiddlePaneCollapsible;
+    /**
+     * Resets all performance counters to 0.
+     */
+    public void resetPerformanceStats() {
+        mStats.reset();
+        for (BuildLayerFrameLayout pane : mPanes) {
+            pane.resetCounters();
+        }
     }
 
-    public void setLeftActiveView(View v) {
-        setLeftActiveView(v, 0);
+    /**
+     * Starts recording transitions, animation frames, measure and layout passes, layer builds and indicator animations
+     * into a ring buffer. Recording doesn't allocate, and is cheap enough to leave on in test builds.
+     *
+     * @param capacity The number of events kept. Once the buffer is full, the oldest events are dropped.
+     */
+    public void startTimelineRecording(int capacity) {
+        mTimeline.start(capacity, mPanes);
     }
 
-    public void setLeftActiveView(View v, int position) {
-        setLeftActiveView(v, position, true);
+    /**
+     * Stops recording. The recorded events are kept until recording is started again.
+     */
+    public void stopTimelineRecording() {
+        mTimeline.stop(mPanes);
     }
 
-    public void setLeftActiveView(View v, int position, boolean animate) {
-        final View oldView = mLeftActiveView;
-        mLeftActiveView = v;
-        mLeftActivePosition = position;
+    /**
+     * Writes the recorded events to a file in the Chrome trace-event JSON format, which can be opened in
+     * chrome://tracing and other trace viewers.
+     *
+     * @throws IllegalStateException If recording was never started.
+     */
+    public void writeTimeline(File file) throws IOException {
+        mTimeline.writeTo(file);
+    }
 
-        if (oldView != null && animate) {
-            startAnimatingLeftIndicator();
-        } else {
-            mLeftIndicatorOffset = 1.0f;
+    /**
+     * Enables idle strict mode. While no transition or indicator animation is running, frame callbacks, layer builds
+     * and repeated invalidations by the same source are reported to the {@link OnIdleViolationListener}, or logged if
+     * there isn't one. Invalidations caused by the app, like setting an active view, are reported as well; a source
+     * whose count keeps increasing while the screen is left alone is what this is for.
+     */
+    public void setIdleStrictModeEnabled(boolean enabled) {
+        if (enabled == (mIdleMonitor != null)) {
+            return;
         }
 
-        invalidate();
+        mIdleMonitor = enabled ? new IdleMonitor(this) : null;
+        if (mIdleMonitor != null) {
+            mIdleMonitor.setListener(mIdleViolationListener);
+        }
+        for (int i = 0; i < PANE_COUNT; i++) {
+            mPanes[i].setIdleMonitor(mIdleMonitor, i);
+        }
     }
 
-    private void startAnimatingLeftIndicator() {
-        mLeftIndicatorStartPos = mLeftIndicatorTop;
-        mLeftIndicatorAnimating = true;
-        mLeftIndicatorScroller.startScroll(0.0f, 1.0f, INDICATOR_ANIM_DURATION);
+    public boolean isIdleStrictModeEnabled() {
+        return mIdleMonitor != null;
+    }
 
-        animateLeftIndicatorInvalidate();
+    public void setOnIdleViolationListener(OnIdleViolationListener listener) {
+        mIdleViolationListener = listener;
+        if (mIdleMonitor != null) {
+            mIdleMonitor.setListener(listener);
+        }
     }
 
     /**
-     * Callback when each frame in the indicator animation should be drawn.
+     * Shows a debug overlay above the panes, with a graph of the time between frames while the panes move, the offset
+     * and page state, how each pane is drawn, and the measure and layout passes since the last transition started.
+     * Pane layers being built are highlighted. Nothing is tracked while the overlay is disabled.
      */
-    private void animateLeftIndicatorInvalidate() {
-        if (mLeftIndicatorScroller.computeScrollOffset()) {
-            mLeftIndicatorOffset = mLeftIndicatorScroller.getCurr();
+    public void setPerformanceOverlayEnabled(boolean enabled) {
+        if (enabled != (mOverlay != null)) {
+            mOverlay = enabled ? new PerformanceOverlay(getResources(), mPanes, mSnapshots) : null;
             invalidate();
-
-            if (!mLeftIndicatorScroller.isFinished()) {
-                postOnAnimation(mLeftIndicatorRunnable);
-                return;
-            }
         }
+    }
 
-        completeAnimatingLeftIndicator();
+    public boolean isPerformanceOverlayEnabled() {
+        return mOverlay != null;
     }
 
     /**
-     * Called when the indicator animation has completed.
+     * Whether no transition, indicator animation or resize is running.
      */
-    private void completeAnimatingLeftIndicator() {
-        mLeftIndicatorOffset = 1.0f;
-        mLeftIndicatorAnimating = false;
-        invalidate();
+    boolean isIdle() {
+        return mScroller.isFinished() && !mIndicators.isAnimating() && !mResize.isActive() && !mProgress.isActive();
     }
 
-    public void setMiddleActiveView(View v) {
-        setMiddleActiveView(v, 0);
+    private int dpToPx(int dp) {
+        return SharedResources.dpToPx(getResources(), dp);
     }
 
-    public void setMiddleActiveView(View v, int position) {
-        setMiddleActiveView(v, position, true);
+    public void setLeftPaneLayout(int layoutId) {
+        setPaneContent(paneIndex(PANE_LEFT), layoutId, null);
     }
 
-    public void setMiddleActiveView(View v, int position, boolean animate) {
-        final View oldView = mMiddleActiveView;
-        mMiddleActiveView = v;
-        mMiddleActivePosition = position;
-
-        if (oldView != null && animate) {
-            startAnimatingMiddleIndicator();
-        } else {
-            mMiddleIndicatorOffset = 1.0f;
-        }
-
-        invalidate();
+    public void setMiddlePaneLayout(int layoutId) {
+        setPaneContent(paneIndex(PANE_MIDDLE), layoutId, null);
     }
 
-    private void startAnimatingMiddleIndicator() {
-        mMiddleIndicatorStartPos = mMiddleIndicatorTop;
-        mMiddleIndicatorAnimating = true;
-        mMiddleIndicatorScroller.startScroll(0.0f, 1.0f, INDICATOR_ANIM_DURATION);
+    public void setRightPaneLayout(int layoutId) {
+        setPaneContent(paneIndex(PANE_RIGHT), layoutId, null);
+    }
 
-        animateMiddleIndicatorInvalidate();
+    void setPaneContent(int index, int layoutId, View content) {
+        final ViewGroup pane = mPanes[index];
+        pane.removeAllViews();
+        if (content != null) {
+            pane.addView(content);
+        } else if (layoutId != 0) {
+            final LayoutInflater inflater = mRetainPaneContent ? mRetainedContent.getInflater(getContext())
+                    : LayoutInflater.from(getContext());
+            inflater.inflate(layoutId, pane);
+        }
     }
 
     /**
-     * Callback when each frame in the indicator animation should be drawn.
+     * Sets whether pane content is kept when the activity is recreated for a configuration change. The content is
+     * added to the new layout with the same id, instead of inflating the pane layouts again. Pane layouts are then
+     * inflated with a context that is moved over to the new activity along with the content, so resources are loaded
+     * for the new configuration. Views that load resources when they're created can refresh them in
+     * {@link OnPaneContentRestoredListener#onPaneContentRestored(int, View)}.
+     * <p/>
+     * Only content inflated from pane layouts is kept. Other content, like views set with
+     * {@link PaneTransaction#setPaneView(int, View)}, references the old activity and is dropped with a warning.
+     * <p/>
+     * The layout must have an id, and pane content must not contain fragments. Can also be set with the
+     * {@code retainPaneContent} attribute, which is needed for content to be adopted when the layout is inflated.
      */
-    private void animateMiddleIndicatorInvalidate() {
-        if (mMiddleIndicatorScroller.computeScrollOffset()) {
-            mMiddleIndicatorOffset = mMiddleIndicatorScroller.getCurr();
-            invalidate();
+    public void setRetainPaneContent(boolean retain) {
+        mRetainPaneContent = retain;
+    }
 
-            if (!mMiddleIndicatorScroller.isFinished()) {
-                postOnAnimation(mMiddleIndicatorRunnable);
-                return;
-            }
-        }
+    public boolean isRetainPaneContent() {
+        return mRetainPaneContent;
+    }
 
-        completeAnimatingMiddleIndicator();
+    public void setOnPaneContentRestoredListener(OnPaneContentRestoredListener listener) {
+        mPaneContentRestoredListener = listener;
+        mRetainedContent.dispatchRestored(mPanes, listener);
     }
 
-    /**
-     * Called when the indicator animation has completed.
-     */
-    private void completeAnimatingMiddleIndicator() {
-        mMiddleIndicatorOffset = 1.0f;
-        mMiddleIndicatorAnimating = false;
-        invalidate();
+    public void showLeftPane() {
+        showLeftPane(true);
     }
 
-    @Override
-    protected void dispatchDraw(Canvas canvas) {
-        super.dispatchDraw(canvas);
-        final int height = getHeight();
-        final int dropShadowWidth = mDropShadowWidth;
+    public void showLeftPane(boolean animate) {
+        setVisiblePanes(PANE_LEFT | PANE_MIDDLE, animate);
+    }
 
-        final int middlePaneLeft = (int) (mMiddlePane.getLeft() + Math.floor(mMiddlePane.getTranslationX()));
-        mShadow.setBounds(middlePaneLeft - dropShadowWidth, 0, middlePaneLeft, height);
-        mShadow.draw(canvas);
+    public void showRightPane() {
+        showRightPane(true);
+    }
 
-        final int rightPaneLeft = (int) (mRightPane.getLeft() + Math.floor(mRightPane.getTranslationX()));
-        final int scaledDropShadowWidth = (int) (dropShadowWidth * SMOOTH_INTERPOLATOR.getInterpolation(mOffset));
-        mShadow.setBounds(rightPaneLeft - scaledDropShadowWidth, 0, rightPaneLeft, height);
-        mShadow.draw(canvas);
+    public void showRightPane(boolean animate) {
+        setVisiblePanes(mMiddlePaneCollapsible ? PANE_RIGHT | PANE_MIDDLE : PANE_RIGHT, animate);
+    }
 
-        drawLeftIndicator(canvas);
-        drawMiddleIndicator(canvas);
+    /**
+     * Sets the minimum width at which all three panes are shown side by side, without any sliding. Below this width,
+     * the layout slides between the left and right panes.
+     *
+     * @param minWidth The minimum width in pixels, or 0 to never show all three panes.
+     */
+    public void setStaticLayoutMinWidth(int minWidth) {
+        if (minWidth != mStaticLayoutMinWidth) {
+            mStaticLayoutMinWidth = minWidth;
+            mStaticLayoutResolvedWidth = -1;
+            requestLayout();
+        }
     }
 
-    private void drawLeftIndicator(Canvas canvas) {
-        if (mLeftActiveView != null && isViewDescendant(mLeftActiveView)) {
-            Integer position = (Integer) mLeftActiveView.getTag(R.id.tplActiveViewPosition);
-            final int pos = position == null ? 0 : position;
+    /**
+     * Whether all three panes are currently laid out side by side.
+     */
+    public boolean isStaticLayout() {
+        return mStaticLayout;
+    }
 
-            if (pos == mLeftActivePosition) {
+    /**
+     * Shows the given panes. Nothing happens if they're already showing, or are being animated to.
+     *
+     * @return Whether the visible panes changed.
+     */
+    boolean setVisiblePanes(int visiblePanes, boolean animate) {
+        final boolean showRight = (visiblePanes & PANE_RIGHT) != 0;
+        final float finalOffset = showRight ? 1.0f : 0.0f;
+        final float currentTarget = mScroller.isFinished() ? mOffset : mScroller.getFinal();
+        if (visiblePanes == mVisiblePanes && currentTarget == finalOffset) {
+            return false;
+        }
 
-                mLeftActiveView.getDrawingRect(mLeftActiveRect);
-                offsetDescendantRectToMyCoords(mLeftActiveView, mLeftActiveRect);
+        final boolean rightChanged = showRight != isRightPaneVisible();
+        mVisiblePanes = visiblePanes;
 
-                if (mLeftIndicatorAnimating) {
-                    final int indicatorFinalTop = mLeftActiveRect.top + ((mLeftActiveRect.height()
-                            - mLeftActiveIndicator.getHeight()) / 2);
-                    final int indicatorStartTop = mLeftIndicatorStartPos;
-                    final int diff = indicatorFinalTop - indicatorStartTop;
-                    final int startOffset = (int) (diff * mLeftIndicatorOffset);
-                    mLeftIndicatorTop = indicatorStartTop + startOffset;
-                } else {
-                    mLeftIndicatorTop = mLeftActiveRect.top + ((mLeftActiveRect.height()
-                            - mLeftActiveIndicator.getHeight()) / 2);
-                }
-                final int right = (int) (mMiddlePane.getLeft() + Math.floor(mMiddlePane.getTranslationX()));
-                final int left = right - mLeftActiveIndicator.getWidth();
+        if (mStaticLayout) {
+            // All panes are already showing, only keep track of the state for when the layout starts sliding again.
+            mOffset = finalOffset;
+            setPageState(showRight ? STATE_RIGHT_VISIBLE : STATE_LEFT_VISIBLE);
+            return true;
+        }
 
-                canvas.save();
-                canvas.clipRect(left, 0, right, getHeight());
-                canvas.drawBitmap(mLeftActiveIndicator, left, mLeftIndicatorTop, null);
-                canvas.restore();
-            }
+        // The width of the middle pane only depends on the visible panes when it's collapsed by resizing it.
+        if (rightChanged && mMiddlePaneCollapsible && mMiddlePaneCollapseMode == COLLAPSE_MODE_RESIZE) {
+            requestLayout();
         }
+
+        animateOffsetTo(finalOffset, animate);
+        if (animate) setPageState(showRight ? STATE_ANIMATE_RIGHT : STATE_ANIMATE_LEFT);
+        return true;
     }
 
-    private void drawMiddleIndicator(Canvas canvas) {
-        if (mMiddleActiveView != null && isViewDescendant(mMiddleActiveView)) {
-            Integer position = (Integer) mMiddleActiveView.getTag(R.id.tplActiveViewPosition);
-            final int pos = position == null ? 0 : position;
+    /**
+     * Starts moving the panes under the control of an external progress source, like a back gesture or a scroll
+     * position elsewhere on screen. The offset is then set with {@link #setTransitionProgress(float)}, which only
+     * moves the panes: nothing is laid out and the visible panes don't change until the transition is ended with
+     * {@link #commitProgressTransition(boolean)}, {@link #cancelProgressTransition()} or
+     * {@link #settleProgressTransition()}.
+     * <p/>
+     * Nothing is started while all panes are laid out side by side, and the other progress methods then do nothing. A
+     * transition that is running when the layout becomes static, for example when the window is resized, is ended
+     * the same way, so a gesture can keep calling them until it ends.
+     *
+     * @return Whether a progress transition is running. False if the panes are laid out side by side.
+     */
+    public boolean beginProgressTransition() {
+        if (mStaticLayout) {
+            return false;
+        }
+        if (mProgress.isActive()) {
+            return true;
+        }
 
-            if (pos == mMiddleActivePosition) {
+        stopAnimation();
+        mTimeline.record(TimelineRecorder.EVENT_TRANSITION, TimelineRecorder.PHASE_BEGIN, 0);
+        mStats.transitionCount++;
+        mProgress.begin();
+        mTransitionDrawing.start(mTransformCoefficients, mStaticLayout);
+        setPageState(isRightPaneVisible() ? STATE_ANIMATE_LEFT : STATE_ANIMATE_RIGHT);
+        return true;
+    }
 
-                mMiddleActiveView.getDrawingRect(mMiddleActiveRect);
-                offsetDescendantRectToMyCoords(mMiddleActiveView, mMiddleActiveRect);
+    /**
+     * Moves the panes to the given progress. Does nothing if no progress transition is running.
+     *
+     * @param progress 0 when the left and middle panes are showing, 1 when the right pane is showing.
+     */
+    public void setTransitionProgress(float progress) {
+        if (!mProgress.isActive()) {
+            return;
+        }
 
-                final float interpolatedRatio = 1.f - INDICATOR_INTERPOLATOR.getInterpolation(1.0f - mOffset);
-                final int interpolatedWidth = (int) (mMiddleActiveIndicator.getWidth() * interpolatedRatio);
+        setOffset(mProgress.add(progress));
+    }
 
-                if (mMiddleIndicatorAnimating) {
-                    final int indicatorFinalTop = mMiddleActiveRect.top + ((mMiddleActiveRect.height()
-                            - mMiddleActiveIndicator.getHeight()) / 2);
-                    final int indicatorStartTop = mMiddleIndicatorStartPos;
-                    final int diff = indicatorFinalTop - indicatorStartTop;
-                    final int startOffset = (int) (diff * mMiddleIndicatorOffset);
-                    mMiddleIndicatorTop = indicatorStartTop + startOffset;
-                } else {
-                    mMiddleIndicatorTop = mMiddleActiveRect.top + ((mMiddleActiveRect.height()
-                            - mMiddleActiveIndicator.getHeight()) / 2);
-                }
-                final int right = (int) (mRightPane.getLeft() + mRightPane.getTranslationX());
-                final int left = right - interpolatedWidth;
+    public boolean isProgressTransitionActive() {
+        return mProgress.isActive();
+    }
 
-                canvas.save();
-                canvas.clipRect(left, 0, right, getHeight());
-                canvas.drawBitmap(mMiddleActiveIndicator, left, mMiddleIndicatorTop, null);
-                canvas.restore();
-            }
+    /**
+     * Ends the progress transition by animating to the given side, continuing at the velocity the progress was
+     * changing with. Does nothing if no progress transition is running.
+     *
+     * @param showRightPane Whether the right pane is shown, or the left and middle panes.
+     */
+    public void commitProgressTransition(boolean showRightPane) {
+        if (!mProgress.isActive()) {
+            return;
         }
-    }
 
-    protected boolean isViewDescendant(View v) {
-        ViewParent parent = v.getParent();
-        while (parent != null) {
-            if (parent == this) {
-                return true;
-            }
+        final int panes = showRightPane ? (mMiddlePaneCollapsible ? PANE_RIGHT | PANE_MIDDLE : PANE_RIGHT)
+                : PANE_LEFT | PANE_MIDDLE;
+        if (!setVisiblePanes(panes, true)) {
+            // Already at the target.
+            animateOffsetTo(mOffset, false);
+            setPageState(showRightPane ? STATE_RIGHT_VISIBLE : STATE_LEFT_VISIBLE);
+        }
+    }
 
-            parent = parent.getParent();
+    /**
+     * Ends the progress transition by animating back to the panes that were showing when it started. Does nothing if
+     * no progress transition is running.
+     */
+    public void cancelProgressTransition() {
+        if (!mProgress.isActive()) {
+            return;
         }
 
-        return false;
+        commitProgressTransition(isRightPaneVisible());
     }
 
-    @Override
+    /**
+     * Ends the progress transition by animating to the side the progress was moving towards, or to the nearest side
+     * if it was moving slowly. Does nothing if no progress transition is running.
+     */
+    public void settleProgressTransition() {
+        if (!mProgress.isActive()) {
+            return;
+        }
+
+        commitProgressTransition(mProgress.settlesRight(mOffset));
+    }
+
+    /**
+     * Starts a transaction that batches changes to pane visibility, active views and pane content. The changes are
+     * applied together when {@link PaneTransaction#commit()} is called, resulting in a single layout pass and a single
+     * animation.
+     */
+    public PaneTransaction beginTransaction() {
+        return new PaneTransaction(this);
+    }
+
+    public boolean isLeftPaneVisible() {
+        return (mVisiblePanes & PANE_LEFT) != 0;
+    }
+
+    public boolean isMiddlePaneShowing() {
+        return (mVisiblePanes & PANE_MIDDLE) != 0;
+    }
+
+    public boolean isRightPaneVisible() {
+        return (mVisiblePanes & PANE_RIGHT) != 0;
+    }
+
+    public boolean isMiddlePaneCollapsible() {
+        return mMiddlePaneCollapsible;
+    }
+
+    /**
+     * Sets how the middle pane is collapsed when the right pane is shown.
+     *
+     * @param collapseMode Either {@link #COLLAPSE_MODE_RESIZE} or {@link #COLLAPSE_MODE_CLIP}.
+     */
+    public void setMiddlePaneCollapseMode(int collapseMode) {
+        if (collapseMode != COLLAPSE_MODE_RESIZE && collapseMode != COLLAPSE_MODE_CLIP) {
+            throw new IllegalArgumentException("Unknown collapse mode " + collapseMode);
+        }
+
+        if (collapseMode != mMiddlePaneCollapseMode) {
+            mMiddlePaneCollapseMode = collapseMode;
+            requestLayout();
+        }
+    }
+
+    public int getMiddlePaneCollapseMode() {
+        return mMiddlePaneCollapseMode;
+    }
+
+    /**
+     * Whether the middle pane is collapsed by being covered by the right pane, rather than by being resized.
+     */
+    private boolean isMiddlePaneClipped() {
+        return mMiddlePaneCollapsible && mMiddlePaneCollapseMode == COLLAPSE_MODE_CLIP && !mStaticLayout;
+    }
+
+    public void setLeftActiveView(View v) {
+        setLeftActiveView(v, 0);
+    }
+
+    public void setLeftActiveView(View v, int position) {
+        setLeftActiveView(v, position, true);
+    }
+
+    public void setLeftActiveView(View v, int position, boolean animate) {
+        setActiveView(PANE_LEFT, v, position, animate);
+    }
+
+    public void setMiddleActiveView(View v) {
+        setMiddleActiveView(v, 0);
+    }
+
+    public void setMiddleActiveView(View v, int position) {
+        setMiddleActiveView(v, position, true);
+    }
+
+    public void setMiddleActiveView(View v, int position, boolean animate) {
+        setActiveView(PANE_MIDDLE, v, position, animate);
+    }
+
+    public void setRightActiveView(View v) {
+        setRightActiveView(v, 0);
+    }
+
+    public void setRightActiveView(View v, int position) {
+        setRightActiveView(v, position, true);
+    }
+
+    public void setRightActiveView(View v, int position, boolean animate) {
+        setActiveView(PANE_RIGHT, v, position, animate);
+    }
+
+    /**
+     * Sets the active view of a pane. The pane's indicator is drawn next to the view, at the right edge of the pane.
+     * The view is only weakly referenced, so it doesn't keep content that is removed from the pane from being
+     * collected.
+     *
+     * @param pane     One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+     * @param v        The active view, or null to hide the indicator.
+     * @param position The position the view represents. Must match the view's
+     *                 {@link R.id#tplActiveViewPosition} tag for the indicator to be drawn.
+     * @param animate  Whether the indicator should animate from its previous position.
+     */
+    public void setActiveView(int pane, View v, int position, boolean animate) {
+        final int index = indicatorIndex(pane);
+        final boolean animating = mIndicators.setView(index, v, position, animate);
+        mScrollTracker.update();
+
+        if (animating) {
+            startIndicatorAnimation();
+        } else {
+            invalidate();
+        }
+    }
+
+    public void setLeftActivePosition(AbsListView list, int position) {
+        setActivePosition(PANE_LEFT, list, position, true);
+    }
+
+    public void setMiddleActivePosition(AbsListView list, int position) {
+        setActivePosition(PANE_MIDDLE, list, position, true);
+    }
+
+    public void setRightActivePosition(AbsListView list, int position) {
+        setActivePosition(PANE_RIGHT, list, position, true);
+    }
+
+    /**
+     * Anchors the indicator of a pane to a position in a list. Unlike with active views, rows don't have to
+     * be tagged with their position, and the indicator follows the position when rows are recycled. While the
+     * position is scrolled out of view, the indicator is drawn at the edge of the list.
+     *
+     * @param pane     One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+     * @param list     The list containing the active position, or null to hide the indicator.
+     * @param position The list position of the active row. List positions include the header views of a
+     *                 {@link android.widget.ListView}, like {@link AbsListView#getPositionForView(View)}.
+     * @param animate  Whether the indicator should animate from its previous position.
+     */
+    public void setActivePosition(int pane, AbsListView list, int position, boolean animate) {
+        final int index = indicatorIndex(pane);
+        final boolean animating = mIndicators.setListPosition(index, list, position, animate);
+        mScrollTracker.update();
+
+        if (animating) {
+            startIndicatorAnimation();
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Sets the bitmap drawn next to the active view of a pane.
+     *
+     * @param pane      One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+     * @param indicator The indicator, or null to not draw an indicator for the pane.
+     */
+    public void setActiveIndicator(int pane, Bitmap indicator) {
+        final int index = indicatorIndex(pane);
+        mIndicators.setBitmap(index, indicator, 0);
+        invalidate();
+    }
+
+    /**
+     * Sets the drawable resource drawn next to the active view of a pane. Unlike bitmaps set with
+     * {@link #setActiveIndicator(int, Bitmap)}, the decoded bitmap is shared with other layouts using the same
+     * resource, and dropped when memory is low or the layout is detached. It's decoded again the next time it's drawn.
+     *
+     * @param pane  One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+     * @param resId The drawable resource, or 0 to not draw an indicator for the pane.
+     */
+    public void setActiveIndicatorResource(int pane, int resId) {
+        final int index = indicatorIndex(pane);
+        mIndicators.setBitmap(index, resId != 0 ? SharedResources.acquireBitmap(getResources(), resId) : null, resId);
+        invalidate();
+    }
+
+    /**
+     * Returns the bitmap of an indicator, decoding it again if it was dropped because of memory pressure.
+     */
+    Bitmap getIndicatorBitmap(int index) {
+        if (mIndicators.reacquireBitmap(index, getResources())) {
+            mStats.indicatorReloadCount++;
+        }
+
+        return mIndicators.getBitmap(index);
+    }
+
+    /**
+     * Returns the index of a pane in {@link #mPanes}.
+     */
+    static int paneIndex(int pane) {
+        switch (pane) {
+            case PANE_LEFT:
+                return 0;
+            case PANE_MIDDLE:
+                return 1;
+            case PANE_RIGHT:
+                return 2;
+            default:
+                throw new IllegalArgumentException("Unknown pane " + pane);
+        }
+    }
+
+    static int indicatorIndex(int pane) {
+        switch (pane) {
+            case PANE_LEFT:
+                return INDICATOR_LEFT;
+            case PANE_MIDDLE:
+                return INDICATOR_MIDDLE;
+            case PANE_RIGHT:
+                return INDICATOR_RIGHT;
+            default:
+                throw new IllegalArgumentException("Unknown pane " + pane);
+        }
+    }
+
+    ActiveIndicators getIndicators() {
+        return mIndicators;
+    }
+
+    /**
+     * Restarts the indicator animations from the current frame.
+     */
+    void startIndicatorAnimation() {
+        removeCallbacks(mIndicatorRunnable);
+        animateIndicatorsInvalidate();
+    }
+
+    /**
+     * Tracks scrolling of the current active views and pane content.
+     */
+    void updateScrollTracking() {
+        mScrollTracker.update();
+    }
+
+    /**
+     * Callback when each frame in the indicator animations should be drawn. All indicators are advanced together.
+     */
+    private void animateIndicatorsInvalidate() {
+        final boolean traced = TraceCompat.beginSection("TPL:indicatorFrame");
+        final boolean animating = mIndicators.step();
+        mIndicators.invalidate(this);
+
+        mTimeline.setIndicatorsAnimating(animating);
+
+        if (animating) {
+            postOnAnimation(mIndicatorRunnable);
+        } else if (isIdle()) {
+            mTouchGate.postReplay();
+        }
+        TraceCompat.endSection(traced);
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        final boolean traced = TraceCompat.beginSection("TPL:dispatchDraw");
+        final long startNanos = System.nanoTime();
+        // In clip mode the right pane covers the middle pane, even when it isn't opaque.
+        mOcclusion.update(getWidth(), isMiddlePaneClipped() ? PANE_RIGHT : 0);
+        super.dispatchDraw(canvas);
+        final int height = getHeight();
+        final int dropShadowWidth = mDropShadowWidth;
+
+        final int middlePaneLeft = (int) (mMiddlePane.getLeft() + Math.floor(mMiddlePane.getTranslationX()));
+        mShadow.setBounds(middlePaneLeft - dropShadowWidth, 0, middlePaneLeft, height);
+        mShadow.draw(canvas);
+
+        final int rightPaneLeft = (int) (mRightPane.getLeft() + Math.floor(mRightPane.getTranslationX()));
+        final float offset = mStaticLayout ? 1.0f : mOffset;
+        final int scaledDropShadowWidth = (int) (dropShadowWidth * SMOOTH_INTERPOLATOR.getInterpolation(offset));
+        mShadow.setBounds(rightPaneLeft - scaledDropShadowWidth, 0, rightPaneLeft, height);
+        mShadow.draw(canvas);
+
+        mIndicators.draw(canvas, this);
+
+        mStats.dispatchDrawCount++;
+        mStats.dispatchDrawTotalNanos += System.nanoTime() - startNanos;
+        if (mOverlay != null) mOverlay.draw(canvas, mOffset, mPageState, !isIdle(), mStats.transitionCount,
+                mFrameIntervalNanos);
+        TraceCompat.endSection(traced);
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        final int index = child == mLeftPane ? 0 : child == mMiddlePane ? 1 : child == mRightPane ? 2 : -1;
+        if (index == -1) {
+            return super.drawChild(canvas, child, drawingTime);
+        }
+
+        if (mOcclusion.isFullyVisible(index)) {
+            return drawPane(canvas, child, index, drawingTime);
+        }
+
+        // Only draw the part of the pane that is inside this layout, and not covered by a pane above it.
+        if (mOcclusion.isHidden(index)) {
+            return false;
+        }
+
+        final int saveCount = canvas.save();
+        canvas.clipRect(mOcclusion.getClipLeft(index), 0, mOcclusion.getClipRight(index), getHeight());
+        final boolean more = drawPane(canvas, child, index, drawingTime);
+        canvas.restoreToCount(saveCount);
+        return more;
+    }
+
+    /**
+     * Draws a pane, either from its snapshot or from its view hierarchy.
+     */
+    private boolean drawPane(Canvas canvas, View pane, int index, long drawingTime) {
+        return !mSnapshots.draw(canvas, pane, index) && super.drawChild(canvas, pane, drawingTime);
+    }
+
+    /**
+     * Returns the right edge of the pane the indicator belongs to, in this layout's coordinates.
+     */
+    int getIndicatorRight(int index) {
+        switch (index) {
+            case INDICATOR_LEFT:
+                return (int) (mMiddlePane.getLeft() + Math.floor(mMiddlePane.getTranslationX()));
+            case INDICATOR_MIDDLE:
+                return (int) (mRightPane.getLeft() + mRightPane.getTranslationX());
+            default:
+                return (int) (mRightPane.getLeft() + mRightPane.getTranslationX()) + mRightPane.getWidth();
+        }
+    }
+
+    int getIndicatorWidth(int index, Bitmap indicator) {
+        if (index == INDICATOR_MIDDLE && !mStaticLayout) {
+            final float interpolatedRatio = 1.f - INDICATOR_INTERPOLATOR.getInterpolation(1.0f - mOffset);
+            return (int) (indicator.getWidth() * interpolatedRatio);
+        }
+
+        return indicator.getWidth();
+    }
+
+    protected boolean isViewDescendant(View v) {
+        ViewParent parent = v.getParent();
+        while (parent != null) {
+            if (parent == this) {
+                return true;
+            }
+
+            parent = parent.getParent();
+        }
+
+        return false;
+    }
+
+    @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        final boolean traced = TraceCompat.beginSection("TPL:onLayout");
+        mTimeline.record(TimelineRecorder.EVENT_LAYOUT, TimelineRecorder.PHASE_BEGIN, 0);
+        if (mOverlay != null) mOverlay.onLayout(mStats.transitionCount);
         final int width = r - l;
         final int height = b - t;
         final float offset = mOffset;
@@ -529,7 +1169,24 @@ public class ThreePaneLayout extends ViewGroup {
         mMiddlePane.layout(leftPaneWidth, 0, leftPaneWidth + middlePaneWidth, height);
 
         final int rightPaneWidth = mRightPane.getMeasuredWidth();
-        mRightPane.layout(width, 0, width + rightPaneWidth, height);
+        if (mStaticLayout) {
+            final int rightPaneLeft = leftPaneWidth + middlePaneWidth;
+            mRightPane.layout(rightPaneLeft, 0, rightPaneLeft + rightPaneWidth, height);
+        } else {
+            mRightPane.layout(width, 0, width + rightPaneWidth, height);
+        }
+
+        if (mResize.isActive()) {
+            // The resize translations depend on where the panes are laid out.
+            updateTransformCoefficients(width);
+            setOffset(mOffset);
+        }
+
+        updatePaneTouchability();
+        updatePaneVisibility();
+        mScrollTracker.update();
+        mTimeline.record(TimelineRecorder.EVENT_LAYOUT, TimelineRecorder.PHASE_END, 0);
+        TraceCompat.endSection(traced);
     }
 
     @Override
@@ -541,11 +1198,19 @@ public class ThreePaneLayout extends ViewGroup {
             throw new IllegalStateException("Must measure with an exact size");
         }
 
+        final boolean traced = TraceCompat.beginSection("TPL:onMeasure");
+        mTimeline.record(TimelineRecorder.EVENT_MEASURE, TimelineRecorder.PHASE_BEGIN, 0);
+        if (mOverlay != null) mOverlay.onMeasure(mStats.transitionCount);
         final int width = MeasureSpec.getSize(widthMeasureSpec);
         final int height = MeasureSpec.getSize(heightMeasureSpec);
 
         setMeasuredDimension(width, height);
 
+        if (width != mStaticLayoutResolvedWidth) {
+            mStaticLayoutResolvedWidth = width;
+            setStaticLayout(mStaticLayoutMinWidth > 0 && width >= mStaticLayoutMinWidth);
+        }
+
         // Measure left pane
         final int leftPaneWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, mLeftPaneWidth);
         final int leftPaneHeightMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, height);
@@ -557,7 +1222,8 @@ public class ThreePaneLayout extends ViewGroup {
 
         mMiddlePaneExpandedWidth = width - mLeftPaneWidth;
 
-        if (isRightPaneVisible() && mMiddlePaneCollapsible) {
+        if (mStaticLayout || (isRightPaneVisible() && mMiddlePaneCollapsible
+                && mMiddlePaneCollapseMode == COLLAPSE_MODE_RESIZE)) {
             middlePaneWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, mMiddlePaneCollapsedWidth);
         } else {
             middlePaneWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, mMiddlePaneExpandedWidth);
@@ -569,44 +1235,381 @@ public class ThreePaneLayout extends ViewGroup {
         int rightWidthMeasureSpec;
         final int rightHeightMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, height);
 
-        if (mMiddlePaneCollapsible) {
+        if (mStaticLayout) {
+            final int rightWidth = width - mLeftPaneWidth - mMiddlePaneCollapsedWidth;
+            rightWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, rightWidth);
+        } else if (mMiddlePaneCollapsible) {
             rightWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, width - mMiddlePaneCollapsedWidth);
         } else {
             rightWidthMeasureSpec = getChildMeasureSpec(widthMeasureSpec, 0, width);
         }
 
-        final int rightWidth = MeasureSpec.getSize(rightWidthMeasureSpec);
-
         mRightPane.measure(rightWidthMeasureSpec, rightHeightMeasureSpec);
 
+        if (width != mTransformWidth) {
+            mTransformWidth = width;
+            updateTransformCoefficients(width);
+        }
+
         // Just making sure it updates the translations
         setOffset(mOffset);
+        mTimeline.record(TimelineRecorder.EVENT_MEASURE, TimelineRecorder.PHASE_END, 0);
+        TraceCompat.endSection(traced);
+    }
+
+    /**
+     * Switches between laying out all three panes side by side, and sliding between them. Pane content is kept, only
+     * the measured widths and translations of the panes change.
+     */
+    private void setStaticLayout(boolean staticLayout) {
+        if (staticLayout == mStaticLayout) {
+            return;
+        }
+
+        if (staticLayout && !mScroller.isFinished()) {
+            removeCallbacks(mDragRunnable);
+            completeAnimation();
+        } else if (staticLayout && mProgress.isActive()) {
+            // Progress transitions only move sliding panes, return to the panes that were showing.
+            final boolean showRight = isRightPaneVisible();
+            animateOffsetTo(showRight ? 1.0f : 0.0f, false);
+            setPageState(showRight ? STATE_RIGHT_VISIBLE : STATE_LEFT_VISIBLE);
+        }
+
+        mStaticLayout = staticLayout;
+        // The transform is computed for sliding panes only, and is zeroed while the layout is static.
+        mTransformWidth = -1;
+        mLeftPane.setHardwareLayersEnabled(!staticLayout);
+        mMiddlePane.setHardwareLayersEnabled(!staticLayout);
+        mRightPane.setHardwareLayersEnabled(!staticLayout);
+
+        if (staticLayout) {
+            for (int i = 0; i < PANE_COUNT; i++) {
+                final BuildLayerFrameLayout pane = mPanes[i];
+                pane.setTranslationX(0);
+                pane.setScaleX(1.0f);
+                pane.setScaleY(1.0f);
+                pane.setAlpha(1.0f);
+                pane.setTouchEnabled(true);
+            }
+        }
+    }
+
+    /**
+     * Sets how the panes move as the layout slides between the left and right pane.
+     *
+     * @param transform The transform, or null to use {@link PaneTransform#COLLAPSE} if the middle pane is
+     *                  collapsible and {@link PaneTransform#SLIDE} if it isn't.
+     */
+    public void setPaneTransform(PaneTransform transform) {
+        mPaneTransform = transform;
+        for (int i = 0; i < PANE_COUNT; i++) {
+            final BuildLayerFrameLayout pane = mPanes[i];
+            pane.setScaleX(1.0f);
+            pane.setScaleY(1.0f);
+            pane.setAlpha(1.0f);
+        }
+        mTransformWidth = -1;
+        requestLayout();
+    }
+
+    private void updateTransformCoefficients(int width) {
+        final PaneTransform.Coefficients c = mTransformCoefficients;
+        final boolean resizing = mResize.isActive();
+        final int leftPaneWidth = resizing ? mResize.getLeftPaneWidth() : mLeftPaneWidth;
+        final int collapsedWidth = resizing ? mResize.getCollapsedWidth() : mMiddlePaneCollapsedWidth;
+
+        c.reset();
+        if (!mStaticLayout) {
+            final PaneTransform transform = mPaneTransform != null ? mPaneTransform
+                    : mMiddlePaneCollapsible ? PaneTransform.COLLAPSE : PaneTransform.SLIDE;
+            transform.computeCoefficients(c, width, leftPaneWidth, collapsedWidth);
+        }
+
+        if (resizing) {
+            mResize.apply(c, mOcclusion, mMiddlePane, mRightPane, mStaticLayout);
+        }
+    }
+
+    public int getLeftPaneWidth() {
+        return mLeftPaneWidth;
+    }
+
+    /**
+     * Sets the width of the left pane.
+     */
+    public void setLeftPaneWidth(int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("Width must not be negative");
+        }
+
+        setPaneWidths(width, mMiddlePaneCollapsedWidth);
+    }
+
+    public int getMiddlePaneCollapsedWidth() {
+        return mMiddlePaneCollapsedWidth;
+    }
+
+    /**
+     * Sets the width of the middle pane while it's collapsed.
+     */
+    public void setMiddlePaneCollapsedWidth(int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("Width must not be negative");
+        }
+
+        setPaneWidths(mLeftPaneWidth, width);
+    }
+
+    private void setPaneWidths(int leftPaneWidth, int collapsedWidth) {
+        if (leftPaneWidth != mLeftPaneWidth || collapsedWidth != mMiddlePaneCollapsedWidth) {
+            mLeftPaneWidth = leftPaneWidth;
+            mMiddlePaneCollapsedWidth = collapsedWidth;
+            mTransformWidth = -1;
+            requestLayout();
+        }
+    }
+
+    /**
+     * Starts resizing the panes interactively, e.g. while a divider is dragged. Until {@link #endPaneResize()} is
+     * called, {@link #resizePanes(int, int)} moves and clips the panes to the new widths without measuring them.
+     */
+    public void beginPaneResize() {
+        mResize.begin(mLeftPaneWidth, mMiddlePaneCollapsedWidth);
+    }
+
+    /**
+     * Shows the panes at new widths. The panes are measured for the new widths when the resize ends, or at most once
+     * per the interval set with {@link #setPaneResizeMeasureInterval(int)}.
+     *
+     * @throws IllegalStateException If {@link #beginPaneResize()} hasn't been called.
+     */
+    public void resizePanes(int leftPaneWidth, int middlePaneCollapsedWidth) {
+        if (!mResize.isActive()) {
+            throw new IllegalStateException("beginPaneResize() must be called first");
+        }
+        if (leftPaneWidth < 0 || middlePaneCollapsedWidth < 0) {
+            throw new IllegalArgumentException("Width must not be negative");
+        }
+
+        if (mResize.update(leftPaneWidth, middlePaneCollapsedWidth)) {
+            setPaneWidths(leftPaneWidth, middlePaneCollapsedWidth);
+        }
+
+        updateTransformCoefficients(getWidth());
+        setOffset(mOffset);
+    }
+
+    /**
+     * Ends the resize, and measures the panes for their new widths.
+     */
+    public void endPaneResize() {
+        if (!mResize.isActive()) {
+            return;
+        }
+
+        mResize.end();
+        mOcclusion.clearVisibleWidths();
+        if (mStaticLayout) {
+            mMiddlePane.setTranslationX(0);
+            mRightPane.setTranslationX(0);
+        }
+
+        setPaneWidths(mResize.getLeftPaneWidth(), mResize.getCollapsedWidth());
+        mTransformWidth = -1;
+        requestLayout();
+        if (isIdle()) mTouchGate.postReplay();
+    }
+
+    /**
+     * Sets how often the panes are measured while they're resized.
+     *
+     * @param intervalMillis The minimum time between measures, or 0 to only measure when the resize ends.
+     */
+    public void setPaneResizeMeasureInterval(int intervalMillis) {
+        mResize.setMeasureInterval(intervalMillis);
     }
 
     private void setOffset(float offset) {
+        // Shadows and indicators are drawn at the pane positions, so the layout is only redrawn if a pane moved.
+        boolean changed = offset != mOffset;
         mOffset = offset;
+        if (changed) {
+            TraceCompat.setCounter("TPL:offset", (int) (offset * 1000));
+        }
 
-        invalidate();
+        if (mStaticLayout && !mResize.isActive()) {
+            if (changed) invalidate();
+            return;
+        }
+
+        final PaneTransform.Coefficients c = mTransformCoefficients;
+        final BuildLayerFrameLayout[] panes = mPanes;
+        for (int i = 0; i < PANE_COUNT; i++) {
+            final BuildLayerFrameLayout pane = panes[i];
+            final int translation = (int) (c.mTranslationStarts[i] + c.mTranslationDeltas[i] * offset);
+            if (translation != pane.getTranslationX()) {
+                pane.setTranslationX(translation);
+                changed = true;
+            }
+            if (c.mScaled) {
+                final float scale = c.mScaleStarts[i] + c.mScaleDeltas[i] * offset;
+                if (scale != pane.getScaleX()) {
+                    pane.setScaleX(scale);
+                    pane.setScaleY(scale);
+                    changed = true;
+                }
+            }
+            if (c.mFaded) {
+                final float alpha = c.mAlphaStarts[i] + c.mAlphaDeltas[i] * offset;
+                if (alpha != pane.getAlpha()) {
+                    pane.setAlpha(alpha);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            invalidate();
+        }
+
+        updatePaneTouchability();
+        updatePaneVisibility();
+    }
 
+    /**
+     * Sets how touches are handled while the panes or active indicators are moving, or the panes are being resized.
+     *
+     * @param mode One of {@link #TOUCH_GATING_NONE}, {@link #TOUCH_GATING_DROP} or {@link #TOUCH_GATING_QUEUE}.
+     */
+    public void setTouchGatingMode(int mode) {
+        if (mode != TOUCH_GATING_NONE && mode != TOUCH_GATING_DROP && mode != TOUCH_GATING_QUEUE) {
+            throw new IllegalArgumentException("Unknown touch gating mode " + mode);
+        }
+
+        mTouchGate.setMode(mode);
+    }
+
+    public int getTouchGatingMode() {
+        return mTouchGate.getMode();
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        return mTouchGate.onInterceptTouchEvent(ev, !isIdle()) || super.onInterceptTouchEvent(ev);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        return mTouchGate.onTouchEvent(ev, !isIdle()) || super.onTouchEvent(ev);
+    }
+
+    /**
+     * Panes that have been moved completely outside of this layout don't take part in touch dispatch.
+     */
+    private void updatePaneTouchability() {
         final int width = getWidth();
-        if (mMiddlePaneCollapsible) {
-            final int middlePaneOffset = (int) (-mLeftPaneWidth * offset);
-            mLeftPane.setTranslationX(middlePaneOffset);
-            mMiddlePane.setTranslationX(middlePaneOffset);
-            final int rightPaneTranslation = (int) (-(width - mMiddlePaneCollapsedWidth) * offset);
-            mRightPane.setTranslationX(rightPaneTranslation);
-        } else {
-            final int viewOffset = (int) (-width * offset);
-            mLeftPane.setTranslationX(viewOffset);
-            mMiddlePane.setTranslationX(viewOffset);
-            mRightPane.setTranslationX(viewOffset);
+        if (width == 0) {
+            return;
         }
+
+        updatePaneTouchability(mLeftPane, width);
+        updatePaneTouchability(mMiddlePane, width);
+        updatePaneTouchability(mRightPane, width);
+    }
+
+    private static void updatePaneTouchability(BuildLayerFrameLayout pane, int width) {
+        final int left = (int) (pane.getLeft() + pane.getTranslationX());
+        pane.setTouchEnabled(left < width && left + pane.getWidth() > 0);
+    }
+
+    /**
+     * Enables or disables systrace sections and counters for all {@link ThreePaneLayout}s. Sections are written
+     * around measure, layout, drawing, animation frames and layer builds, and counters for the offset (in thousandths)
+     * and the number of layer builds. Tracing requires API 18.
+     */
+    public static void setTraceEnabled(boolean enabled) {
+        TraceCompat.setEnabled(enabled);
     }
 
     public void setPaneStateChangeListener(OnPaneStateChangeListener paneStateChangeListener) {
         mPaneStateChangeListener = paneStateChangeListener;
     }
 
+    /**
+     * Adds a listener that is told when a pane becomes hidden, partially visible or fully visible, as the panes move.
+     * Content of hidden panes can use this to pause work, like animations and polling. Panes covered by an opaque
+     * pane count as hidden.
+     *
+     * @see PaneFragment
+     */
+    public void addOnPaneVisibilityChangeListener(OnPaneVisibilityChangeListener listener) {
+        final boolean hadListeners = mPaneVisibility.hasListeners();
+        mPaneVisibility.addListener(listener);
+        if (!hadListeners) {
+            updatePaneVisibility();
+        }
+    }
+
+    public void removeOnPaneVisibilityChangeListener(OnPaneVisibilityChangeListener listener) {
+        mPaneVisibility.removeListener(listener);
+    }
+
+    /**
+     * Returns how much of a pane is on screen.
+     *
+     * @param pane One of {@link #PANE_LEFT}, {@link #PANE_MIDDLE} or {@link #PANE_RIGHT}.
+     * @return One of {@link #PANE_HIDDEN}, {@link #PANE_PARTIALLY_VISIBLE} or {@link #PANE_VISIBLE}.
+     */
+    public int getPaneVisibility(int pane) {
+        final int index = paneIndex(pane);
+        if (getWidth() == 0) {
+            return PANE_HIDDEN;
+        }
+
+        mOcclusion.update(getWidth(), isMiddlePaneClipped() ? PANE_RIGHT : 0);
+        return PaneVisibilityTracker.getVisibility(mOcclusion, mPanes[index], index);
+    }
+
+    /**
+     * Returns the pane a child of this layout is, or 0 if it isn't a pane.
+     */
+    int getPaneOf(View child) {
+        for (int i = 0; i < PANE_COUNT; i++) {
+            if (mPanes[i] == child) {
+                return 1 << i;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Whether a view is shown, and inside a pane that is at least partially on screen.
+     */
+    boolean isInVisiblePane(View v) {
+        if (!v.isShown()) {
+            return false;
+        }
+
+        View child = v;
+        ViewParent parent = v.getParent();
+        while (parent instanceof View && parent != this) {
+            child = (View) parent;
+            parent = parent.getParent();
+        }
+
+        final int pane = parent == this ? getPaneOf(child) : 0;
+        return pane != 0 && getPaneVisibility(pane) != PANE_HIDDEN;
+    }
+
+    private void updatePaneVisibility() {
+        if (mPaneVisibility.hasListeners() && getWidth() > 0) {
+            mOcclusion.update(getWidth(), isMiddlePaneClipped() ? PANE_RIGHT : 0);
+            mPaneVisibility.update(mOcclusion, mPanes);
+        }
+    }
+
     private void setPageState(int state) {
         if (state != mPageState) {
             if (mPaneStateChangeListener != null) mPaneStateChangeListener.onPaneStateChange(mPageState, state);
@@ -615,46 +1618,72 @@ public class ThreePaneLayout extends ViewGroup {
     }
 
     /**
-     * If possible, set the layer type to {@link View#LAYER_TYPE_HARDWARE}.
+     * Sets whether the panes are drawn from bitmap snapshots while they slide, instead of from their view hierarchies.
+     * Snapshots are always used when hardware layers aren't available. Enabling them is useful when pane content
+     * forces software layers, like a {@code WebView} does. Content changes made during a transition are shown once
+     * it ends.
      */
-    protected void startLayerTranslation() {
-        if (USE_TRANSLATIONS && !mLayerTypeHardware) {
-            mLayerTypeHardware = true;
-            mLeftPane.setLayerType(View.LAYER_TYPE_HARDWARE, null);
-            mMiddlePane.setLayerType(View.LAYER_TYPE_HARDWARE, null);
-            mRightPane.setLayerType(View.LAYER_TYPE_HARDWARE, null);
-        }
+    public void setSnapshotTransitionsEnabled(boolean enabled) {
+        mTransitionDrawing.setSnapshotsEnabled(enabled);
+    }
+
+    public boolean isSnapshotTransitionsEnabled() {
+        return mTransitionDrawing.isSnapshotsEnabled();
     }
 
     /**
-     * If the current layer type is {@link View#LAYER_TYPE_HARDWARE}, this will set it to @link View#LAYER_TYPE_NONE}.
+     * Sets whether layout requests from inside panes that move during a transition are held back until it completes.
+     * Each moving pane is then laid out once at the end, instead of the layout being measured again mid-slide when
+     * e.g. an image finishes loading. Panes that don't move are laid out right away.
      */
-    private void stopLayerTranslation() {
-        if (mLayerTypeHardware) {
-            mLayerTypeHardware = false;
-            mLeftPane.setLayerType(View.LAYER_TYPE_NONE, null);
-            mMiddlePane.setLayerType(View.LAYER_TYPE_NONE, null);
-            mRightPane.setLayerType(View.LAYER_TYPE_NONE, null);
-        }
+    public void setDeferPaneLayoutDuringTransitions(boolean defer) {
+        mTransitionDrawing.setDeferLayout(defer);
+    }
+
+    public boolean isDeferPaneLayoutDuringTransitions() {
+        return mTransitionDrawing.isDeferLayout();
+    }
+
+    /**
+     * If possible, set the layer type to {@link View#LAYER_TYPE_HARDWARE}.
+     */
+    protected void startLayerTranslation() {
+        mTransitionDrawing.startLayers(mStaticLayout);
     }
 
     protected void stopAnimation() {
         removeCallbacks(mDragRunnable);
+        mLastFrameNanos = 0;
         mScroller.abortAnimation();
-        stopLayerTranslation();
+        mTransitionDrawing.stop();
+        mTimeline.record(TimelineRecorder.EVENT_TRANSITION, TimelineRecorder.PHASE_END, 0);
     }
 
     private void completeAnimation() {
         mScroller.abortAnimation();
+        mLastFrameNanos = 0;
         final float finalVal = mScroller.getFinal();
         setOffset(finalVal);
         setPageState(isLeftPaneVisible() ? STATE_LEFT_VISIBLE : STATE_RIGHT_VISIBLE);
-        stopLayerTranslation();
+        mTransitionDrawing.stop();
+        mTimeline.record(TimelineRecorder.EVENT_TRANSITION, TimelineRecorder.PHASE_END, 0);
+
+        mScrollTracker.update();
+        if (isIdle()) mTouchGate.postReplay();
     }
 
     protected void animateOffsetTo(float finalOffset, boolean animate) {
+        removeCallbacks(mDragRunnable);
+        final boolean wasProgressActive = mProgress.isActive();
+        final float velocity = mProgress.end();
+
         if (!animate) {
+            mScroller.abortAnimation();
+            mTransitionDrawing.stop();
+            mTimeline.record(TimelineRecorder.EVENT_TRANSITION, TimelineRecorder.PHASE_END, 0);
             setOffset(finalOffset);
+            mScrollTracker.update();
+            if (isIdle()) mTouchGate.postReplay();
             return;
         }
 
@@ -662,9 +1691,22 @@ public class ThreePaneLayout extends ViewGroup {
         final float dx = finalOffset - start;
 
         int duration = (int) (DURATION_MAX * Math.abs(dx));
-        mScroller.startScroll(start, dx, duration);
+        Interpolator interpolator = SMOOTH_INTERPOLATOR;
+        final int settleDuration = ProgressTransition.getSettleDuration(dx, velocity);
+        if (settleDuration < duration) {
+            // Moving towards the target, continue at the same speed and decelerate.
+            duration = settleDuration;
+            interpolator = ProgressTransition.SETTLE_INTERPOLATOR;
+        }
 
-        startLayerTranslation();
+        if (mScroller.isFinished() && !wasProgressActive) {
+            // A running transition is retargeted, and a settling progress transition continues, as one span.
+            mTimeline.record(TimelineRecorder.EVENT_TRANSITION, TimelineRecorder.PHASE_BEGIN, 0);
+        }
+        mScroller.startScroll(start, dx, duration, interpolator);
+        if (!wasProgressActive) mStats.transitionCount++;
+        mLastFrameNanos = 0;
+        mTransitionDrawing.start(mTransformCoefficients, mStaticLayout);
         postAnimationInvalidate();
     }
 
@@ -672,21 +1714,59 @@ public class ThreePaneLayout extends ViewGroup {
      * Callback when each frame in the drawer animation should be drawn.
      */
     private void postAnimationInvalidate() {
+        final boolean traced = TraceCompat.beginSection("TPL:animationFrame");
+        final long now = System.nanoTime();
+        mStats.frameCount++;
+        if (mLastFrameNanos != 0) {
+            mStats.addFrameInterval(now - mLastFrameNanos, mFrameIntervalNanos);
+        }
+        mLastFrameNanos = now;
+
         if (mScroller.computeScrollOffset()) {
             final float curr = mScroller.getCurr();
 
             setOffset(curr);
+            mTimeline.record(TimelineRecorder.EVENT_FRAME, TimelineRecorder.PHASE_INSTANT, (int) (curr * 1000));
             if (!mScroller.isFinished()) {
                 postOnAnimation(mDragRunnable);
+                TraceCompat.endSection(traced);
                 return;
             }
         }
 
         completeAnimation();
+        TraceCompat.endSection(traced);
+    }
+
+    @Override
+    public void invalidate() {
+        if (mIdleMonitor != null) {
+            mIdleMonitor.check(IdleMonitor.OP_INVALIDATE);
+        }
+        super.invalidate();
+    }
+
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        if (mIdleMonitor != null) {
+            mIdleMonitor.check(IdleMonitor.OP_INVALIDATE);
+        }
+        super.invalidate(l, t, r, b);
+    }
+
+    @Override
+    public void invalidate(Rect dirty) {
+        if (mIdleMonitor != null) {
+            mIdleMonitor.check(IdleMonitor.OP_INVALIDATE);
+        }
+        super.invalidate(dirty);
     }
 
     @Override
     public void postOnAnimation(Runnable action) {
+        if (mIdleMonitor != null) {
+            mIdleMonitor.check(IdleMonitor.OP_POST_ON_ANIMATION);
+        }
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             super.postOnAnimation(action);
         } else {
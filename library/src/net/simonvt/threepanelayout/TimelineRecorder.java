@@ -0,0 +1,166 @@
+package net.simonvt.threepanelayout;
+
+import android.os.Process;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Records timeline events into a preallocated ring buffer, and writes them in the Chrome trace-event JSON format.
+ * Events are stored in primitive arrays, so recording doesn't allocate. When the buffer is full, the oldest events are
+ * overwritten.
+ */
+final class TimelineRecorder {
+
+    static final int EVENT_TRANSITION = 0;
+
+    static final int EVENT_FRAME = 1;
+
+    static final int EVENT_MEASURE = 2;
+
+    static final int EVENT_LAYOUT = 3;
+
+    static final int EVENT_LAYER_BUILD = 4;
+
+    static final int EVENT_INDICATOR_ANIMATION = 5;
+
+    private static final int EVENT_TYPE_COUNT = 6;
+
+    private static final String[] EVENT_NAMES = {
+            "transition",
+            "frame",
+            "measure",
+            "layout",
+            "layerBuild",
+            "indicatorAnimation",
+    };
+
+    static final byte PHASE_BEGIN = 'B';
+
+    static final byte PHASE_END = 'E';
+
+    static final byte PHASE_INSTANT = 'i';
+
+    private final long[] mTimes;
+
+    private final byte[] mTypes;
+
+    private final byte[] mPhases;
+
+    private final int[] mArgs;
+
+    private int mHead;
+
+    private int mCount;
+
+    TimelineRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+
+        mTimes = new long[capacity];
+        mTypes = new byte[capacity];
+        mPhases = new byte[capacity];
+        mArgs = new int[capacity];
+    }
+
+    /**
+     * Records an event at the current time.
+     *
+     * @param type  One of the EVENT_ constants.
+     * @param phase One of the PHASE_ constants.
+     * @param arg   The offset in thousandths for frames, the pane index for layer builds, otherwise ignored.
+     */
+    void record(int type, byte phase, int arg) {
+        final int index = mHead;
+        mTimes[index] = System.nanoTime();
+        mTypes[index] = (byte) type;
+        mPhases[index] = phase;
+        mArgs[index] = arg;
+
+        mHead = index + 1 == mTimes.length ? 0 : index + 1;
+        if (mCount < mTimes.length) {
+            mCount++;
+        }
+    }
+
+    int getCapacity() {
+        return mTimes.length;
+    }
+
+    void clear() {
+        mHead = 0;
+        mCount = 0;
+    }
+
+    void writeTo(File file) throws IOException {
+        Writer writer = new BufferedWriter(new FileWriter(file));
+        try {
+            writeTo(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the recorded events, oldest first. Each event type is written on its own thread id, so spans of
+     * different types don't have to nest. Spans whose start has been overwritten are left out.
+     */
+    void writeTo(Writer writer) throws IOException {
+        final int pid = Process.myPid();
+        final int capacity = mTimes.length;
+        final int start = mCount < capacity ? 0 : mHead;
+        final int[] openSpans = new int[EVENT_TYPE_COUNT];
+        boolean first = true;
+
+        writer.write("{\"traceEvents\":[\n");
+
+        for (int type = 0; type < EVENT_TYPE_COUNT; type++) {
+            if (!first) {
+                writer.write(",\n");
+            }
+            first = false;
+            writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + pid + ",\"tid\":" + (type + 1)
+                    + ",\"args\":{\"name\":\"" + EVENT_NAMES[type] + "\"}}");
+        }
+
+        for (int i = 0; i < mCount; i++) {
+            final int index = (start + i) % capacity;
+            final int type = mTypes[index];
+            final byte phase = mPhases[index];
+
+            if (phase == PHASE_BEGIN) {
+                openSpans[type]++;
+            } else if (phase == PHASE_END) {
+                if (openSpans[type] == 0) {
+                    continue;
+                }
+                openSpans[type]--;
+            }
+
+            final String ts = String.valueOf(mTimes[index] / 1000.0);
+            writer.write(",\n{\"name\":\"" + EVENT_NAMES[type] + "\",\"ph\":\"" + (char) phase + "\",\"ts\":" + ts
+                    + ",\"pid\":" + pid + ",\"tid\":" + (type + 1));
+
+            if (phase == PHASE_INSTANT) {
+                writer.write(",\"s\":\"t\"");
+            }
+
+            if (type == EVENT_FRAME) {
+                final String offset = String.valueOf(mArgs[index] / 1000.0f);
+                writer.write(",\"args\":{\"offset\":" + offset + "}},\n");
+                writer.write("{\"name\":\"offset\",\"ph\":\"C\",\"ts\":" + ts + ",\"pid\":" + pid
+                        + ",\"args\":{\"offset\":" + offset + "}}");
+            } else if (type == EVENT_LAYER_BUILD && phase != PHASE_END) {
+                writer.write(",\"args\":{\"pane\":" + mArgs[index] + "}}");
+            } else {
+                writer.write("}");
+            }
+        }
+
+        writer.write("\n],\"displayTimeUnit\":\"ms\"}\n");
+    }
+}
@@ -0,0 +1,76 @@
+package net.simonvt.threepanelayout;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Timeline recording state of a layout, see {@link ThreePaneLayout#startTimelineRecording(int)}. The recorder is kept
+ * after recording stops, so the events can still be written, and reused when recording starts again with the same
+ * capacity.
+ */
+final class TimelineRecording {
+
+    private TimelineRecorder mRecorder;
+
+    private boolean mRecording;
+
+    /**
+     * Whether an indicator animation span has been recorded as started, but not as ended.
+     */
+    private boolean mIndicatorSpanOpen;
+
+    /**
+     * Starts recording, dropping events recorded before. Layer builds are recorded by the panes themselves.
+     */
+    void start(int capacity, BuildLayerFrameLayout[] panes) {
+        if (mRecorder == null || capacity != mRecorder.getCapacity()) {
+            mRecorder = new TimelineRecorder(capacity);
+        } else {
+            mRecorder.clear();
+        }
+
+        mRecording = true;
+        mIndicatorSpanOpen = false;
+        for (int i = 0; i < panes.length; i++) {
+            panes[i].setTimelineRecorder(mRecorder, i);
+        }
+    }
+
+    void stop(BuildLayerFrameLayout[] panes) {
+        mRecording = false;
+        for (int i = 0; i < panes.length; i++) {
+            panes[i].setTimelineRecorder(null, i);
+        }
+    }
+
+    /**
+     * @throws IllegalStateException If recording was never started.
+     */
+    void writeTo(File file) throws IOException {
+        if (mRecorder == null) {
+            throw new IllegalStateException("Timeline recording was never started");
+        }
+
+        mRecorder.writeTo(file);
+    }
+
+    /**
+     * Records an event if recording, see {@link TimelineRecorder#record(int, byte, int)}.
+     */
+    void record(int type, byte phase, int arg) {
+        if (mRecording) {
+            mRecorder.record(type, phase, arg);
+        }
+    }
+
+    /**
+     * Records the start or end of the indicator animations, when they started or stopped since the last call.
+     */
+    void setIndicatorsAnimating(boolean animating) {
+        if (animating != mIndicatorSpanOpen && mRecording) {
+            mIndicatorSpanOpen = animating;
+            mRecorder.record(TimelineRecorder.EVENT_INDICATOR_ANIMATION,
+                    animating ? TimelineRecorder.PHASE_BEGIN : TimelineRecorder.PHASE_END, 0);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package net.simonvt.threepanelayout;
+
+import android.graphics.Rect;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * Intercepts touches that start while the panes are moving, as set with
+ * {@link ThreePaneLayout#setTouchGatingMode(int)}. In {@link ThreePaneLayout#TOUCH_GATING_QUEUE} mode the down and up
+ * events of a tap are held on to, and dispatched to the layout once the panes have stopped. Gestures that move further
+ * than the touch slop, or use more than one pointer, aren't taps and are dropped.
+ * <p/>
+ * The tap is moved along with the pane it landed on, so it's dispatched to the same content. It's dropped if that
+ * content has been moved off screen or under another pane.
+ */
+final class TouchGate {
+
+    private final View mTarget;
+
+    private final View[] mPanes;
+
+    private final int mTouchSlop;
+
+    private int mMode = ThreePaneLayout.TOUCH_GATING_NONE;
+
+    /**
+     * Whether the current gesture was intercepted because it started while the panes were moving.
+     */
+    private boolean mGating;
+
+    private MotionEvent mDown;
+
+    private MotionEvent mUp;
+
+    /**
+     * Index of the pane the tap landed on, or -1 if it didn't land on a pane.
+     */
+    private int mPaneIndex;
+
+    /**
+     * Horizontal position of that pane when the tap started.
+     */
+    private float mPaneX;
+
+    private final Rect mHitRect = new Rect();
+
+    private boolean mReplaying;
+
+    private final Runnable mReplayRunnable = new Runnable() {
+        @Override
+        public void run() {
+            replay();
+        }
+    };
+
+    TouchGate(View target, View[] panes, int touchSlop) {
+        mTarget = target;
+        mPanes = panes;
+        mTouchSlop = touchSlop;
+    }
+
+    void setMode(int mode) {
+        mMode = mode;
+        if (mode != ThreePaneLayout.TOUCH_GATING_QUEUE) {
+            clear();
+        }
+    }
+
+    int getMode() {
+        return mMode;
+    }
+
+    /**
+     * @param moving Whether the layout isn't idle, see {@link ThreePaneLayout#isIdle()}.
+     * @return Whether the gesture is intercepted.
+     */
+    boolean onInterceptTouchEvent(MotionEvent ev, boolean moving) {
+        if (mMode != ThreePaneLayout.TOUCH_GATING_NONE && !mReplaying && moving
+                && ev.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            mGating = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * @param moving Whether the layout isn't idle, see {@link ThreePaneLayout#isIdle()}.
+     * @return Whether the event belongs to an intercepted gesture, and was consumed.
+     */
+    boolean onTouchEvent(MotionEvent ev, boolean moving) {
+        if (!mGating) {
+            return false;
+        }
+
+        final int action = ev.getActionMasked();
+        if (mMode == ThreePaneLayout.TOUCH_GATING_QUEUE) {
+            add(ev);
+        }
+
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            mGating = false;
+            if (!moving) {
+                postReplay();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Dispatches a queued tap, if there is one. Called when the layout becomes idle.
+     */
+    void postReplay() {
+        if (mUp != null) {
+            mTarget.post(mReplayRunnable);
+        }
+    }
+
+    private void add(MotionEvent ev) {
+        switch (ev.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                clear();
+                mDown = MotionEvent.obtain(ev);
+                mPaneIndex = findPane(ev.getX(), ev.getY());
+                if (mPaneIndex != -1) {
+                    mPaneX = getPaneX(mPaneIndex);
+                }
+                break;
+
+            case MotionEvent.ACTION_MOVE:
+                if (mDown != null && (Math.abs(ev.getX() - mDown.getX()) > mTouchSlop
+                        || Math.abs(ev.getY() - mDown.getY()) > mTouchSlop)) {
+                    // Not a tap
+                    clear();
+                }
+                break;
+
+            case MotionEvent.ACTION_UP:
+                if (mDown != null) {
+                    mUp = MotionEvent.obtain(ev);
+                }
+                break;
+
+            default:
+                clear();
+                break;
+        }
+    }
+
+    private void replay() {
+        if (mDown == null || mUp == null) {
+            return;
+        }
+
+        if (mPaneIndex != -1) {
+            // Move the tap along with the pane, and drop it if the pane isn't on top at that point anymore.
+            final float dx = getPaneX(mPaneIndex) - mPaneX;
+            mDown.offsetLocation(dx, 0);
+            mUp.offsetLocation(dx, 0);
+            final float x = mDown.getX();
+            if (x < 0 || x >= mTarget.getWidth() || findPane(x, mDown.getY()) != mPaneIndex) {
+                clear();
+                return;
+            }
+        }
+
+        mReplaying = true;
+        mTarget.dispatchTouchEvent(mDown);
+        mTarget.dispatchTouchEvent(mUp);
+        mReplaying = false;
+        clear();
+    }
+
+    /**
+     * Returns the index of the topmost visible pane at a point, like touches are dispatched, or -1 if there is none.
+     */
+    private int findPane(float x, float y) {
+        for (int i = mPanes.length - 1; i >= 0; i--) {
+            final View pane = mPanes[i];
+            if (pane.getVisibility() == View.VISIBLE) {
+                pane.getHitRect(mHitRect);
+                if (mHitRect.contains((int) x, (int) y)) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    private float getPaneX(int index) {
+        return mPanes[index].getLeft() + mPanes[index].getTranslationX();
+    }
+
+    void clear() {
+        mTarget.removeCallbacks(mReplayRunnable);
+        if (mDown != null) {
+            mDown.recycle();
+            mDown = null;
+        }
+        if (mUp != null) {
+            mUp.recycle();
+            mUp = null;
+        }
+    }
+}
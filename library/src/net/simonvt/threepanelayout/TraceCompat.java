@@ -0,0 +1,118 @@
+package net.simonvt.threepanelayout;
+
+import android.os.Build;
+import android.util.Log;
+
+import java.lang.reflect.Method;
+
+/**
+ * Writes trace sections and counters with {@code android.os.Trace} when it's available. Tracing is off by default,
+ * and every call returns after a single check until it's enabled.
+ * <p/>
+ * {@code android.os.Trace} was added in API 18, so it's looked up through reflection.
+ */
+final class TraceCompat {
+
+    private static final String TAG = "TraceCompat";
+
+    /**
+     * Trace tag used by the framework for view related events.
+     */
+    private static final long TRACE_TAG_VIEW = 1L << 3;
+
+    private static boolean sEnabled;
+
+    private static boolean sInitialized;
+
+    private static Method sBeginSection;
+
+    private static Method sEndSection;
+
+    private static Method sTraceCounter;
+
+    private static Method sSetCounter;
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private TraceCompat() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        if (enabled && !sInitialized) {
+            initialize();
+        }
+
+        sEnabled = enabled && sBeginSection != null;
+    }
+
+    private static void initialize() {
+        sInitialized = true;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            return;
+        }
+
+        try {
+            final Class<?> trace = Class.forName("android.os.Trace");
+            sBeginSection = trace.getMethod("beginSection", String.class);
+            sEndSection = trace.getMethod("endSection");
+
+            try {
+                sSetCounter = trace.getMethod("setCounter", String.class, long.class);
+            } catch (NoSuchMethodException e) {
+                sTraceCounter = trace.getMethod("traceCounter", long.class, String.class, int.class);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to access android.os.Trace", e);
+            sBeginSection = null;
+            sEndSection = null;
+        }
+    }
+
+    /**
+     * Begins a trace section if tracing is enabled. The result is passed to {@link #endSection(boolean)}, so a
+     * section is only ended if it was begun, even if tracing is enabled or disabled in between.
+     *
+     * @return Whether a section was begun.
+     */
+    static boolean beginSection(String sectionName) {
+        if (!sEnabled) {
+            return false;
+        }
+
+        return invoke(sBeginSection, sectionName);
+    }
+
+    /**
+     * Ends the section begun by the {@link #beginSection(String)} call that returned {@code begun}.
+     */
+    static void endSection(boolean begun) {
+        if (!begun) {
+            return;
+        }
+
+        invoke(sEndSection, NO_ARGS);
+    }
+
+    static void setCounter(String counterName, int value) {
+        if (!sEnabled) {
+            return;
+        }
+
+        if (sSetCounter != null) {
+            invoke(sSetCounter, counterName, (long) value);
+        } else if (sTraceCounter != null) {
+            invoke(sTraceCounter, TRACE_TAG_VIEW, counterName, value);
+        }
+    }
+
+    private static boolean invoke(Method method, Object... args) {
+        try {
+            method.invoke(null, args);
+            return true;
+        } catch (Exception e) {
+            Log.w(TAG, "Unable to trace, disabling", e);
+            sEnabled = false;
+            return false;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package net.simonvt.threepanelayout;
+
+import android.view.View;
+
+/**
+ * How the panes are drawn while they move: from hardware layers, or from bitmap snapshots when layers aren't available
+ * or snapshots are enabled. Layout requests from moving panes can be held back until the transition ends.
+ */
+final class TransitionDrawing {
+
+    private final View mHost;
+
+    private final BuildLayerFrameLayout[] mPanes;
+
+    private final PaneSnapshots mSnapshots;
+
+    private final PerformanceStats mStats;
+
+    private boolean mLayerTypeHardware;
+
+    private boolean mSnapshotsEnabled;
+
+    private boolean mDeferLayout;
+
+    TransitionDrawing(View host, BuildLayerFrameLayout[] panes, PaneSnapshots snapshots, PerformanceStats stats) {
+        mHost = host;
+        mPanes = panes;
+        mSnapshots = snapshots;
+        mStats = stats;
+    }
+
+    void setSnapshotsEnabled(boolean enabled) {
+        mSnapshotsEnabled = enabled;
+    }
+
+    boolean isSnapshotsEnabled() {
+        return mSnapshotsEnabled;
+    }
+
+    void setDeferLayout(boolean defer) {
+        mDeferLayout = defer;
+        if (!defer) {
+            for (BuildLayerFrameLayout pane : mPanes) {
+                pane.setDeferLayout(false);
+            }
+        }
+    }
+
+    boolean isDeferLayout() {
+        return mDeferLayout;
+    }
+
+    /**
+     * Holds back layout of the panes that move, and draws the panes from snapshots or hardware layers.
+     */
+    void start(PaneTransform.Coefficients c, boolean staticLayout) {
+        for (int i = 0; i < mPanes.length; i++) {
+            mPanes[i].setDeferLayout(mDeferLayout && c.isMoving(i));
+        }
+
+        if (staticLayout) {
+            return;
+        }
+
+        if (mSnapshotsEnabled || !ThreePaneLayout.USE_TRANSLATIONS || !mHost.isHardwareAccelerated()) {
+            startSnapshots();
+        } else {
+            startLayers(false);
+        }
+    }
+
+    /**
+     * Draws the live panes again, and lays out the ones that were held back.
+     */
+    void stop() {
+        stopLayers();
+        releaseSnapshots();
+        for (BuildLayerFrameLayout pane : mPanes) {
+            pane.setDeferLayout(false);
+        }
+    }
+
+    /**
+     * Renders each pane into a bitmap from the pool, which is drawn in place of the pane until the transition ends.
+     */
+    private void startSnapshots() {
+        if (mSnapshots.isActive()) {
+            return;
+        }
+
+        final boolean traced = TraceCompat.beginSection("TPL:snapshot");
+        mSnapshots.capture(mPanes);
+        TraceCompat.endSection(traced);
+    }
+
+    /**
+     * Returns the snapshots to the pool, and draws the live panes again.
+     */
+    void releaseSnapshots() {
+        if (mSnapshots.isActive()) {
+            mSnapshots.release();
+            mHost.invalidate();
+        }
+    }
+
+    /**
+     * If possible, set the layer type to {@link View#LAYER_TYPE_HARDWARE}.
+     */
+    void startLayers(boolean staticLayout) {
+        if (ThreePaneLayout.USE_TRANSLATIONS && !mLayerTypeHardware && !staticLayout) {
+            mLayerTypeHardware = true;
+            for (BuildLayerFrameLayout pane : mPanes) {
+                if (pane.consumeLayerReleased()) mStats.layerRebuildCount++;
+                pane.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            }
+        }
+    }
+
+    /**
+     * If the current layer type is {@link View#LAYER_TYPE_HARDWARE}, this will set it to {@link View#LAYER_TYPE_NONE}.
+     */
+    private void stopLayers() {
+        if (mLayerTypeHardware) {
+            mLayerTypeHardware = false;
+            for (BuildLayerFrameLayout pane : mPanes) {
+                pane.setLayerType(View.LAYER_TYPE_NONE, null);
+            }
+        }
+    }
+}
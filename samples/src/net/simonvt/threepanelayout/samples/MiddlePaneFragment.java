@@ -4,7 +4,6 @@ import android.app.Activity;
 import android.app.ListFragment;
 import android.os.Bundle;
 import android.view.View;
-import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
@@ -12,7 +11,7 @@ public class MiddlePaneFragment extends ListFragment {
 
     public interface OnMiddlePaneListListener {
 
-        void onMiddleItemClicked(View v, int position);
+        void onMiddleItemClicked(ListView l, int position);
     }
 
     private static final String[] ENTRIES;
@@ -40,14 +39,7 @@ public class MiddlePaneFragment extends ListFragment {
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
         if (mAdapter == null) {
-            mAdapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_list_item_1, ENTRIES) {
-                @Override
-                public View getView(int position, View convertView, ViewGroup parent) {
-                    View v = super.getView(position, convertView, parent);
-                    v.setTag(R.id.tplActiveViewPosition, position);
-                    return v;
-                }
-            };
+            mAdapter = new ArrayAdapter<String>(getActivity(), android.R.layout.simple_list_item_1, ENTRIES);
         }
 
         setListAdapter(mAdapter);
@@ -55,6 +47,6 @@ public class MiddlePaneFragment extends ListFragment {
 
     @Override
     public void onListItemClick(ListView l, View v, int position, long id) {
-        mListener.onMiddleItemClicked(v, position);
+        mListener.onMiddleItemClicked(l, position);
     }
 }
@@ -4,12 +4,15 @@ import net.simonvt.threepanelayout.ThreePaneLayout;
 
 import android.app.Activity;
 import android.os.Bundle;
+import android.view.Menu;
 import android.view.MenuItem;
-import android.view.View;
+import android.widget.ListView;
 
 public class SamplesActivity extends Activity implements LeftPaneFragment.OnLeftPaneListListener,
         MiddlePaneFragment.OnMiddlePaneListListener {
 
+    private static final int MENU_PERFORMANCE_OVERLAY = 1;
+
     private ThreePaneLayout mThreePaneLayout;
 
     int i = 0;
@@ -33,9 +36,20 @@ public class SamplesActivity extends Activity implements LeftPaneFragment.OnLeft
         super.onBackPressed();
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        menu.add(Menu.NONE, MENU_PERFORMANCE_OVERLAY, Menu.NONE, R.string.performance_overlay).setCheckable(true);
+        return true;
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         switch (item.getItemId()) {
+            case MENU_PERFORMANCE_OVERLAY:
+                item.setChecked(!item.isChecked());
+                mThreePaneLayout.setPerformanceOverlayEnabled(item.isChecked());
+                return true;
+
             case android.R.id.home:
                 mThreePaneLayout.showLeftPane();
                 getActionBar().setDisplayHomeAsUpEnabled(false);
@@ -45,14 +59,16 @@ public class SamplesActivity extends Activity implements LeftPaneFragment.OnLeft
     }
 
     @Override
-    public void onLeftItemClicked(View v, int position) {
-        mThreePaneLayout.setLeftActiveView(v, position);
+    public void onLeftItemClicked(ListView l, int position) {
+        mThreePaneLayout.setLeftActivePosition(l, position);
     }
 
     @Override
-    public void onMiddleItemClicked(View v, int position) {
-        mThreePaneLayout.setMiddleActiveView(v, position);
-        mThreePaneLayout.showRightPane();
+    public void onMiddleItemClicked(ListView l, int position) {
+        mThreePaneLayout.beginTransaction()
+                .setActivePosition(ThreePaneLayout.PANE_MIDDLE, l, position)
+                .showRightPane()
+                .commit();
         getActionBar().setDisplayHomeAsUpEnabled(true);
     }
 }
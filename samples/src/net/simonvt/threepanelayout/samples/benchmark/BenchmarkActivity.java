@@ -0,0 +1,147 @@
+package net.simonvt.threepanelayout.samples.benchmark;
+
+import net.simonvt.threepanelayout.PaneTransform;
+import net.simonvt.threepanelayout.ThreePaneLayout;
+
+import android.app.Activity;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+/**
+ * Runs {@link FrameBenchmark} for each pane transform, collapse mode and indicator configuration, and shows the
+ * results.
+ */
+public class BenchmarkActivity extends Activity {
+
+    private static final String TAG = "FrameBenchmark";
+
+    private static final int[] COLLAPSE_MODES = {
+            ThreePaneLayout.COLLAPSE_MODE_RESIZE, ThreePaneLayout.COLLAPSE_MODE_CLIP,
+    };
+
+    private static final int MAX_INDICATORS = 2;
+
+    /**
+     * Collapses the panes like the default transform, while the left pane fades out and the right pane fades in. The
+     * right pane is translucent while it covers the middle pane, so the middle pane can't be clipped to it.
+     */
+    private static final PaneTransform FADE = new PaneTransform() {
+        @Override
+        public void computeCoefficients(Coefficients out, int width, int leftPaneWidth,
+                int middlePaneCollapsedWidth) {
+            PaneTransform.COLLAPSE.computeCoefficients(out, width, leftPaneWidth, middlePaneCollapsedWidth);
+            out.setAlpha(ThreePaneLayout.PANE_LEFT, 1.0f, 0.0f);
+            out.setAlpha(ThreePaneLayout.PANE_RIGHT, 0.0f, 1.0f);
+        }
+    };
+
+    private static final PaneTransform[] TRANSFORMS = {
+            null, FADE,
+    };
+
+    private static final String[] TRANSFORM_NAMES = {
+            "default", "fade",
+    };
+
+    private static final String[] ENTRIES;
+
+    static {
+        final int count = 50;
+        ENTRIES = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            ENTRIES[i] = "Item " + i;
+        }
+    }
+
+    private BenchmarkLayout mLayout;
+
+    private ListView mLeftList;
+
+    private ListView mMiddleList;
+
+    private FrameBenchmark mBenchmark;
+
+    private final StringBuilder mResults = new StringBuilder();
+
+    private int mConfiguration;
+
+    private final Runnable mRunNext = new Runnable() {
+        @Override
+        public void run() {
+            runNext();
+        }
+    };
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        mLeftList = new ListView(this);
+        mLeftList.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, ENTRIES));
+        mMiddleList = new ListView(this);
+        mMiddleList.setAdapter(new ArrayAdapter<String>(this, android.R.layout.simple_list_item_1, ENTRIES));
+        TextView detail = new TextView(this);
+        detail.setText("Detail");
+        detail.setBackgroundColor(0xFFFFFFFF);
+
+        mLayout = new BenchmarkLayout(this);
+        mLayout.setStaticLayoutMinWidth(0);
+        mLayout.beginTransaction()
+                .setPaneView(ThreePaneLayout.PANE_LEFT, mLeftList)
+                .setPaneView(ThreePaneLayout.PANE_MIDDLE, mMiddleList)
+                .setPaneView(ThreePaneLayout.PANE_RIGHT, detail)
+                .commit();
+        setContentView(mLayout);
+
+        mLayout.post(mRunNext);
+    }
+
+    @Override
+    protected void onDestroy() {
+        mLayout.removeCallbacks(mRunNext);
+        super.onDestroy();
+    }
+
+    /**
+     * Runs one configuration per message, so the main thread isn't blocked for the whole benchmark.
+     */
+    private void runNext() {
+        if (mLayout.getWidth() == 0) {
+            // Not laid out yet
+            mLayout.post(mRunNext);
+            return;
+        }
+
+        if (mBenchmark == null) {
+            mBenchmark = new FrameBenchmark(mLayout, mLeftList, mMiddleList);
+            mResults.append("Middle pane collapsible: ").append(mLayout.isMiddlePaneCollapsible()).append('\n');
+            FrameBenchmark.appendHeader(mResults);
+        }
+
+        final int perTransform = COLLAPSE_MODES.length * (MAX_INDICATORS + 1);
+        if (mConfiguration < TRANSFORMS.length * perTransform) {
+            final int transform = mConfiguration / perTransform;
+            final int collapseMode = COLLAPSE_MODES[mConfiguration % perTransform / (MAX_INDICATORS + 1)];
+            final int indicators = mConfiguration % (MAX_INDICATORS + 1);
+            mBenchmark.run(collapseMode, indicators, TRANSFORMS[transform], TRANSFORM_NAMES[transform], mResults);
+            mConfiguration++;
+            mLayout.post(mRunNext);
+            return;
+        }
+
+        Log.i(TAG, mResults.toString());
+
+        TextView results = new TextView(this);
+        results.setTypeface(Typeface.MONOSPACE);
+        results.setText(mResults);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(results);
+        setContentView(scrollView);
+    }
+}
@@ -0,0 +1,98 @@
+package net.simonvt.threepanelayout.samples.benchmark;
+
+import net.simonvt.threepanelayout.ThreePaneLayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+
+/**
+ * ThreePaneLayout that lets the benchmark drive animation frames and drawing synchronously.
+ */
+public class BenchmarkLayout extends ThreePaneLayout {
+
+    private boolean mCaptureFrames;
+
+    private Runnable mPendingFrame;
+
+    public BenchmarkLayout(Context context) {
+        super(context);
+    }
+
+    /**
+     * Shows the left or right pane without animating.
+     */
+    public void jumpTo(boolean showRight) {
+        mCaptureFrames = false;
+        if (showRight) {
+            showRightPane(false);
+        } else {
+            showLeftPane(false);
+        }
+    }
+
+    /**
+     * Starts a transition to the left or right pane, the same way an app would. Its frames are run with
+     * {@link #stepFrame()} instead of being posted.
+     */
+    public void startTransition(boolean showRight) {
+        mCaptureFrames = true;
+        if (showRight) {
+            showRightPane();
+        } else {
+            showLeftPane();
+        }
+    }
+
+    /**
+     * Holds the panes at an offset with a progress transition, which is ended with {@link #endProgress()}.
+     */
+    public void jumpToProgress(float offset) {
+        if (beginProgressTransition()) {
+            setTransitionProgress(offset);
+        }
+    }
+
+    /**
+     * Ends the progress transition by returning to the left pane, running its frames right away.
+     */
+    public void endProgress() {
+        mCaptureFrames = true;
+        commitProgressTransition(false);
+        while (stepFrame()) {
+            // Run the settle animation to its end
+        }
+    }
+
+    /**
+     * Runs the next frame of the transition, which steps the scroller and applies the new offset.
+     *
+     * @return Whether there was a frame to run.
+     */
+    public boolean stepFrame() {
+        final Runnable frame = mPendingFrame;
+        mPendingFrame = null;
+        if (frame == null) {
+            return false;
+        }
+
+        frame.run();
+        if (mPendingFrame == null) {
+            // The transition has ended
+            mCaptureFrames = false;
+        }
+        return true;
+    }
+
+    public void drawFrame(Canvas canvas) {
+        dispatchDraw(canvas);
+    }
+
+    @Override
+    public void postOnAnimation(Runnable action) {
+        if (mCaptureFrames) {
+            mPendingFrame = action;
+        } else {
+            super.postOnAnimation(action);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package net.simonvt.threepanelayout.samples.benchmark;
+
+import net.simonvt.threepanelayout.PaneTransform;
+import net.simonvt.threepanelayout.ThreePaneLayout;
+
+import android.graphics.Bitmap;
+import android.view.View;
+import android.widget.AbsListView;
+
+import java.util.Locale;
+
+/**
+ * Benchmarks the complete per-frame path of a transition: stepping the scroller, applying the offset and drawing the
+ * layout with its shadows and indicators. Transitions are started with {@link ThreePaneLayout#showRightPane()} and
+ * {@link ThreePaneLayout#showLeftPane()}, so the layout pass they cause is timed as part of the first frame. Each
+ * configuration reports the time per frame, and the draw operations issued at a set of fixed offsets.
+ */
+public class FrameBenchmark {
+
+    private static final float[] OFFSETS = {
+            0.0f, 0.25f, 0.5f, 0.75f, 1.0f,
+    };
+
+    private static final int WARMUP_TRANSITIONS = 2;
+
+    private static final int MEASURED_TRANSITIONS = 4;
+
+    private static final int ACTIVE_POSITION = 2;
+
+    private final BenchmarkLayout mLayout;
+
+    private final AbsListView mLeftList;
+
+    private final AbsListView mMiddleList;
+
+    private final OpCountingCanvas mCanvas;
+
+    public FrameBenchmark(BenchmarkLayout layout, AbsListView leftList, AbsListView middleList) {
+        mLayout = layout;
+        mLeftList = leftList;
+        mMiddleList = middleList;
+        mCanvas = new OpCountingCanvas(Bitmap.createBitmap(layout.getWidth(), layout.getHeight(),
+                Bitmap.Config.ARGB_8888));
+    }
+
+    public static void appendHeader(StringBuilder out) {
+        out.append(String.format(Locale.US, "%-36s %5s %6s %9s %9s  %s\n",
+                "Benchmark", "Mode", "Cnt", "Score", "Error", "Units"));
+    }
+
+    /**
+     * Runs one configuration and appends its results.
+     *
+     * @param collapseMode The collapse mode of the middle pane.
+     * @param indicators   The number of indicators drawn, 0, 1 (left) or 2 (left and middle).
+     * @param transform    The pane transform, or null for the default one.
+     * @param name         Name of the transform in the results.
+     */
+    public void run(int collapseMode, int indicators, PaneTransform transform, String name, StringBuilder out) {
+        final BenchmarkLayout layout = mLayout;
+        layout.setMiddlePaneCollapseMode(collapseMode);
+        layout.setPaneTransform(transform);
+        layout.setActivePosition(ThreePaneLayout.PANE_LEFT, indicators >= 1 ? mLeftList : null, ACTIVE_POSITION,
+                false);
+        layout.setActivePosition(ThreePaneLayout.PANE_MIDDLE, indicators >= 2 ? mMiddleList : null,
+                ACTIVE_POSITION, false);
+        layout.jumpTo(false);
+        relayout();
+
+        // Timed frames
+        long total = 0;
+        long totalSquared = 0;
+        int frames = 0;
+        boolean showRight = true;
+        for (int i = 0; i < WARMUP_TRANSITIONS + MEASURED_TRANSITIONS; i++) {
+            final boolean measure = i >= WARMUP_TRANSITIONS;
+            boolean running = true;
+
+            long start = System.nanoTime();
+            layout.startTransition(showRight);
+            if (layout.isLayoutRequested()) {
+                // Done in the traversal before the first frame, e.g. when the middle pane is collapsed by resizing.
+                relayout();
+            }
+            while (running) {
+                layout.drawFrame(mCanvas);
+                final long time = System.nanoTime() - start;
+                if (measure) {
+                    total += time;
+                    totalSquared += time * time;
+                    frames++;
+                }
+
+                start = System.nanoTime();
+                running = layout.stepFrame();
+            }
+
+            showRight = !showRight;
+            relayout();
+        }
+
+        final double mean = frames > 0 ? (double) total / frames : 0.0;
+        final double variance = frames > 0 ? (double) totalSquared / frames - mean * mean : 0.0;
+        final String label = String.format(Locale.US, "frame(%s, %s, indicators=%d)",
+                collapseMode == ThreePaneLayout.COLLAPSE_MODE_CLIP ? "clip" : "resize", name, indicators);
+        out.append(String.format(Locale.US, "%-36s %5s %6d %9.2f \u00b1 %7.2f  us/op\n", label, "avgt", frames,
+                mean / 1000.0, Math.sqrt(Math.max(variance, 0.0)) / 1000.0));
+
+        // Operations per frame at fixed offsets
+        final OpCountingCanvas canvas = mCanvas;
+        out.append(String.format(Locale.US, "  %-8s %6s %8s %6s %9s %6s\n",
+                "offset", "draws", "bitmaps", "saves", "restores", "clips"));
+        for (float offset : OFFSETS) {
+            layout.jumpToProgress(offset);
+            canvas.resetCounts();
+            layout.drawFrame(canvas);
+            out.append(String.format(Locale.US, "  %-8.2f %6d %8d %6d %9d %6d\n", offset, canvas.getDrawCount(),
+                    canvas.getBitmapCount(), canvas.getSaveCount(), canvas.getRestoreCount(),
+                    canvas.getClipCount()));
+        }
+        layout.endProgress();
+    }
+
+    /**
+     * Measures and lays out the layout right away, so changes to the visible panes and collapse mode apply to the
+     * next frame.
+     */
+    private void relayout() {
+        final BenchmarkLayout layout = mLayout;
+        layout.measure(View.MeasureSpec.makeMeasureSpec(layout.getWidth(), View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(layout.getHeight(), View.MeasureSpec.EXACTLY));
+        layout.layout(layout.getLeft(), layout.getTop(), layout.getRight(), layout.getBottom());
+    }
+}
@@ -0,0 +1,254 @@
+package net.simonvt.threepanelayout.samples.benchmark;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+
+/**
+ * Canvas that counts the operations issued on it, while still drawing into its bitmap.
+ */
+public class OpCountingCanvas extends Canvas {
+
+    private int mDrawCount;
+
+    private int mBitmapCount;
+
+    private int mSaveCount;
+
+    private int mRestoreCount;
+
+    private int mClipCount;
+
+    public OpCountingCanvas(Bitmap bitmap) {
+        super(bitmap);
+    }
+
+    public void resetCounts() {
+        mDrawCount = 0;
+        mBitmapCount = 0;
+        mSaveCount = 0;
+        mRestoreCount = 0;
+        mClipCount = 0;
+    }
+
+    /**
+     * Returns the number of draw calls that aren't bitmap draws.
+     */
+    public int getDrawCount() {
+        return mDrawCount;
+    }
+
+    public int getBitmapCount() {
+        return mBitmapCount;
+    }
+
+    public int getSaveCount() {
+        return mSaveCount;
+    }
+
+    public int getRestoreCount() {
+        return mRestoreCount;
+    }
+
+    public int getClipCount() {
+        return mClipCount;
+    }
+
+    @Override
+    public int save() {
+        mSaveCount++;
+        return super.save();
+    }
+
+    @Override
+    public int save(int saveFlags) {
+        mSaveCount++;
+        return super.save(saveFlags);
+    }
+
+    @Override
+    public int saveLayer(RectF bounds, Paint paint, int saveFlags) {
+        mSaveCount++;
+        return super.saveLayer(bounds, paint, saveFlags);
+    }
+
+    @Override
+    public int saveLayerAlpha(float left, float top, float right, float bottom, int alpha, int saveFlags) {
+        mSaveCount++;
+        return super.saveLayerAlpha(left, top, right, bottom, alpha, saveFlags);
+    }
+
+    @Override
+    public void restore() {
+        mRestoreCount++;
+        super.restore();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mRestoreCount++;
+        super.restoreToCount(saveCount);
+    }
+
+    @Override
+    public boolean clipRect(int left, int top, int right, int bottom) {
+        mClipCount++;
+        return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom) {
+        mClipCount++;
+        return super.clipRect(left, top, right, bottom);
+    }
+
+    @Override
+    public boolean clipRect(float left, float top, float right, float bottom, Region.Op op) {
+        mClipCount++;
+        return super.clipRect(left, top, right, bottom, op);
+    }
+
+    @Override
+    public boolean clipRect(Rect rect) {
+        mClipCount++;
+        return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipRect(RectF rect) {
+        mClipCount++;
+        return super.clipRect(rect);
+    }
+
+    @Override
+    public boolean clipPath(Path path) {
+        mClipCount++;
+        return super.clipPath(path);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mBitmapCount++;
+        super.drawBitmap(bitmap, left, top, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+        mBitmapCount++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+        mBitmapCount++;
+        super.drawBitmap(bitmap, src, dst, paint);
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+        mBitmapCount++;
+        super.drawBitmap(bitmap, matrix, paint);
+    }
+
+    @Override
+    public void drawColor(int color) {
+        mDrawCount++;
+        super.drawColor(color);
+    }
+
+    @Override
+    public void drawColor(int color, PorterDuff.Mode mode) {
+        mDrawCount++;
+        super.drawColor(color, mode);
+    }
+
+    @Override
+    public void drawPaint(Paint paint) {
+        mDrawCount++;
+        super.drawPaint(paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+        mDrawCount++;
+        super.drawRect(left, top, right, bottom, paint);
+    }
+
+    @Override
+    public void drawRect(Rect r, Paint paint) {
+        mDrawCount++;
+        super.drawRect(r, paint);
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+        mDrawCount++;
+        super.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+        mDrawCount++;
+        super.drawRoundRect(rect, rx, ry, paint);
+    }
+
+    @Override
+    public void drawOval(RectF oval, Paint paint) {
+        mDrawCount++;
+        super.drawOval(oval, paint);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        mDrawCount++;
+        super.drawCircle(cx, cy, radius, paint);
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+        mDrawCount++;
+        super.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        mDrawCount++;
+        super.drawLine(startX, startY, stopX, stopY, paint);
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        mDrawCount++;
+        super.drawLines(pts, offset, count, paint);
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, Paint paint) {
+        mDrawCount++;
+        super.drawText(text, x, y, paint);
+    }
+
+    @Override
+    public void drawText(String text, int start, int end, float x, float y, Paint paint) {
+        mDrawCount++;
+        super.drawText(text, start, end, x, y, paint);
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        mDrawCount++;
+        super.drawText(text, index, count, x, y, paint);
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        mDrawCount++;
+        super.drawText(text, start, end, x, y, paint);
+    }
+}
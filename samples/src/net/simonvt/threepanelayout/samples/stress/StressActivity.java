@@ -0,0 +1,117 @@
+package net.simonvt.threepanelayout.samples.stress;
+
+import net.simonvt.threepanelayout.ThreePaneLayout;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.graphics.Typeface;
+import android.os.Bundle;
+import android.util.Log;
+import android.widget.ListView;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Fills the panes with {@link StressContent} and runs {@link StressDriver} against it, then shows the report.
+ * <p/>
+ * To run it from a script, start it with an output file name. The report is then written to that file in the app's
+ * files directory, and the activity finishes:
+ * <pre>
+ * adb shell am start -W -n net.simonvt.threepanelayout.samples/.stress.StressActivity \
+ *         --ei runs 10 --es output stress.txt
+ * adb shell run-as net.simonvt.threepanelayout.samples cat files/stress.txt
+ * </pre>
+ */
+public class StressActivity extends Activity implements StressDriver.OnStressCompleteListener {
+
+    private static final String TAG = "StressActivity";
+
+    private static final int LEFT_ROWS = 5000;
+
+    private static final int MIDDLE_ROWS = 20000;
+
+    private static final int RUNS = 5;
+
+    /**
+     * Number of runs, defaults to {@link #RUNS}.
+     */
+    public static final String EXTRA_RUNS = "runs";
+
+    /**
+     * Name of the file in {@link #getFilesDir()} the report is written to. When set, the activity finishes when the
+     * report has been written.
+     */
+    public static final String EXTRA_OUTPUT = "output";
+
+    private StressDriver mDriver;
+
+    private String mOutput;
+
+    @Override
+    public void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+
+        final StressContent content = new StressContent(this);
+        final ListView leftList = content.createList(LEFT_ROWS, 1);
+        final ListView middleList = content.createList(MIDDLE_ROWS, 3);
+
+        ThreePaneLayout layout = new ThreePaneLayout(this);
+        layout.beginTransaction()
+                .setPaneView(ThreePaneLayout.PANE_LEFT, leftList)
+                .setPaneView(ThreePaneLayout.PANE_MIDDLE, middleList)
+                .setPaneView(ThreePaneLayout.PANE_RIGHT, content.createDetail())
+                .commit();
+        setContentView(layout);
+
+        final Intent intent = getIntent();
+        final int runs = Math.max(intent.getIntExtra(EXTRA_RUNS, RUNS), 1);
+        mOutput = intent.getStringExtra(EXTRA_OUTPUT);
+
+        Log.i(TAG, "Generated images: " + content.getImageBytes() / 1024 + " KB");
+        mDriver = new StressDriver(layout, leftList, middleList, runs, this);
+        mDriver.start();
+    }
+
+    @Override
+    protected void onDestroy() {
+        mDriver.stop();
+        super.onDestroy();
+    }
+
+    @Override
+    public void onStressComplete(String report) {
+        Log.i(TAG, report);
+
+        if (mOutput != null) {
+            writeReport(new File(getFilesDir(), mOutput), report);
+            finish();
+            return;
+        }
+
+        TextView results = new TextView(this);
+        results.setTypeface(Typeface.MONOSPACE);
+        results.setText(report);
+        ScrollView scrollView = new ScrollView(this);
+        scrollView.addView(results);
+        setContentView(scrollView);
+    }
+
+    private static void writeReport(File file, String report) {
+        try {
+            Writer writer = new FileWriter(file);
+            try {
+                writer.write(report);
+            } finally {
+                writer.close();
+            }
+            Log.i(TAG, "Report written to " + file);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write report to " + file, e);
+        }
+    }
+}
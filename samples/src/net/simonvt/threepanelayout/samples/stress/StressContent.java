@@ -0,0 +1,162 @@
+package net.simonvt.threepanelayout.samples.stress;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ImageView;
+import android.widget.LinearLayout;
+import android.widget.ListView;
+import android.widget.ScrollView;
+import android.widget.TextView;
+
+/**
+ * Builds pane content that resembles a real app: long lists of rows with several images each, and a detail pane with
+ * deeply nested, weighted layouts.
+ */
+final class StressContent {
+
+    private static final int IMAGE_COUNT = 16;
+
+    private static final int IMAGE_SIZE_DP = 64;
+
+    private static final int DETAIL_SECTIONS = 40;
+
+    private static final int DETAIL_IMAGES_PER_SECTION = 4;
+
+    private static final String PARAGRAPH = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Sed do eiusmod "
+            + "tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud exercitation "
+            + "ullamco laboris nisi ut aliquip ex ea commodo consequat.";
+
+    private final Context mContext;
+
+    private final Bitmap[] mImages = new Bitmap[IMAGE_COUNT];
+
+    private final int mImageSize;
+
+    StressContent(Context context) {
+        mContext = context;
+        mImageSize = (int) (context.getResources().getDisplayMetrics().density * IMAGE_SIZE_DP + 0.5f);
+
+        final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        for (int i = 0; i < IMAGE_COUNT; i++) {
+            final Bitmap image = Bitmap.createBitmap(mImageSize, mImageSize, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(image);
+            final int color = 0xFF000000 | (i * 0x0F3A71 & 0xFFFFFF);
+            paint.setShader(new LinearGradient(0, 0, mImageSize, mImageSize, color, ~color | 0xFF000000,
+                    Shader.TileMode.CLAMP));
+            canvas.drawRect(0, 0, mImageSize, mImageSize, paint);
+            paint.setShader(null);
+            paint.setColor(0x80FFFFFF);
+            canvas.drawCircle(mImageSize / 2, mImageSize / 2, mImageSize / 3, paint);
+            mImages[i] = image;
+        }
+    }
+
+    /**
+     * Returns the memory used by the generated images, in bytes.
+     */
+    int getImageBytes() {
+        return IMAGE_COUNT * mImageSize * mImageSize * 4;
+    }
+
+    ListView createList(int rowCount, int imagesPerRow) {
+        final ListView list = new ListView(mContext);
+        list.setAdapter(new ImageRowAdapter(rowCount, imagesPerRow));
+        list.setBackgroundColor(0xFFFFFFFF);
+        return list;
+    }
+
+    View createDetail() {
+        final LinearLayout content = new LinearLayout(mContext);
+        content.setOrientation(LinearLayout.VERTICAL);
+
+        for (int i = 0; i < DETAIL_SECTIONS; i++) {
+            final TextView header = new TextView(mContext);
+            header.setText("Section " + i);
+            header.setTextSize(20);
+            content.addView(header);
+
+            final LinearLayout images = new LinearLayout(mContext);
+            for (int j = 0; j < DETAIL_IMAGES_PER_SECTION; j++) {
+                final ImageView image = new ImageView(mContext);
+                image.setImageBitmap(mImages[(i + j) % IMAGE_COUNT]);
+                image.setScaleType(ImageView.ScaleType.CENTER_CROP);
+                images.addView(image, new LinearLayout.LayoutParams(0, mImageSize * 2, 1.0f));
+            }
+            content.addView(images);
+
+            final LinearLayout columns = new LinearLayout(mContext);
+            for (int j = 0; j < 2; j++) {
+                final TextView paragraph = new TextView(mContext);
+                paragraph.setText(PARAGRAPH);
+                columns.addView(paragraph, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT,
+                        1.0f));
+            }
+            content.addView(columns);
+        }
+
+        final ScrollView scrollView = new ScrollView(mContext);
+        scrollView.setBackgroundColor(0xFFFFFFFF);
+        scrollView.addView(content);
+        return scrollView;
+    }
+
+    private class ImageRowAdapter extends BaseAdapter {
+
+        private final int mCount;
+
+        private final int mImagesPerRow;
+
+        ImageRowAdapter(int count, int imagesPerRow) {
+            mCount = count;
+            mImagesPerRow = imagesPerRow;
+        }
+
+        @Override
+        public int getCount() {
+            return mCount;
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return position;
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return position;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            LinearLayout row = (LinearLayout) convertView;
+            if (row == null) {
+                row = new LinearLayout(mContext);
+                for (int i = 0; i < mImagesPerRow; i++) {
+                    row.addView(new ImageView(mContext), new LinearLayout.LayoutParams(mImageSize, mImageSize));
+                }
+
+                final LinearLayout text = new LinearLayout(mContext);
+                text.setOrientation(LinearLayout.VERTICAL);
+                text.addView(new TextView(mContext));
+                text.addView(new TextView(mContext));
+                row.addView(text, new LinearLayout.LayoutParams(0, ViewGroup.LayoutParams.WRAP_CONTENT, 1.0f));
+            }
+
+            for (int i = 0; i < mImagesPerRow; i++) {
+                ((ImageView) row.getChildAt(i)).setImageBitmap(mImages[(position + i) % IMAGE_COUNT]);
+            }
+
+            final LinearLayout text = (LinearLayout) row.getChildAt(mImagesPerRow);
+            ((TextView) text.getChildAt(0)).setText("Item " + position);
+            ((TextView) text.getChildAt(1)).setText(PARAGRAPH);
+            return row;
+        }
+    }
+}
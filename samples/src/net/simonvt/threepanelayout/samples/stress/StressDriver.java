@@ -0,0 +1,211 @@
+package net.simonvt.threepanelayout.samples.stress;
+
+import net.simonvt.threepanelayout.PerformanceStats;
+import net.simonvt.threepanelayout.ThreePaneLayout;
+
+import android.os.Debug;
+import android.widget.AbsListView;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Runs a fixed script of transitions, active view changes, list jumps and rapid direction reversals against a
+ * layout, on real frames. After each run, the frame times from {@link PerformanceStats} and the memory use are added
+ * to the report. The peak heap use is sampled on a timer while the steps run, so allocations made and collected
+ * during a transition are seen as well.
+ */
+public class StressDriver {
+
+    public interface OnStressCompleteListener {
+
+        void onStressComplete(String report);
+    }
+
+    private static final int ACTION_SHOW_RIGHT = 0;
+
+    private static final int ACTION_SHOW_LEFT = 1;
+
+    private static final int ACTION_CHANGE_ACTIVE = 2;
+
+    private static final int ACTION_JUMP_LISTS = 3;
+
+    /**
+     * Delay after a step that lets a transition complete.
+     */
+    private static final int SETTLE = 1000;
+
+    /**
+     * Delay after a step that reverses the transition while it's still running.
+     */
+    private static final int REVERSE = 150;
+
+    /**
+     * Time between heap use samples, in milliseconds.
+     */
+    private static final int MEMORY_SAMPLE_INTERVAL = 50;
+
+    /**
+     * Each step is an action and the time to wait before the next step, in milliseconds.
+     */
+    private static final int[][] SCRIPT = {
+            {ACTION_CHANGE_ACTIVE, 300},
+            {ACTION_SHOW_RIGHT, SETTLE},
+            {ACTION_SHOW_LEFT, SETTLE},
+            {ACTION_CHANGE_ACTIVE, 300},
+            {ACTION_SHOW_RIGHT, REVERSE},
+            {ACTION_SHOW_LEFT, REVERSE},
+            {ACTION_SHOW_RIGHT, REVERSE},
+            {ACTION_SHOW_LEFT, SETTLE},
+            {ACTION_JUMP_LISTS, 300},
+            {ACTION_SHOW_RIGHT, SETTLE},
+            {ACTION_CHANGE_ACTIVE, REVERSE},
+            {ACTION_SHOW_LEFT, SETTLE},
+    };
+
+    private final ThreePaneLayout mLayout;
+
+    private final AbsListView mLeftList;
+
+    private final AbsListView mMiddleList;
+
+    private final int mRuns;
+
+    private final OnStressCompleteListener mListener;
+
+    private final Random mRandom = new Random(0);
+
+    private final PerformanceStats mStats = new PerformanceStats();
+
+    private final StringBuilder mReport = new StringBuilder();
+
+    private int mRun;
+
+    private int mStep;
+
+    private long mStartHeap;
+
+    private long mPeakHeap;
+
+    private int mTotalFrames;
+
+    private int mTotalDropped;
+
+    private float mMaxFrameInterval;
+
+    private final Runnable mNextStep = new Runnable() {
+        @Override
+        public void run() {
+            nextStep();
+        }
+    };
+
+    private final Runnable mSampleMemory = new Runnable() {
+        @Override
+        public void run() {
+            mPeakHeap = Math.max(mPeakHeap, getUsedHeap());
+            mLayout.postDelayed(this, MEMORY_SAMPLE_INTERVAL);
+        }
+    };
+
+    public StressDriver(ThreePaneLayout layout, AbsListView leftList, AbsListView middleList, int runs,
+            OnStressCompleteListener listener) {
+        mLayout = layout;
+        mLeftList = leftList;
+        mMiddleList = middleList;
+        mRuns = runs;
+        mListener = listener;
+    }
+
+    public void start() {
+        mReport.append(String.format(Locale.US, "%-4s %6s %7s %8s %8s %8s %9s %9s %10s\n",
+                "Run", "Trans", "Frames", "Dropped", "Avg ms", "Max ms", "Heap KB", "Peak KB", "Native KB"));
+        startRun();
+        mLayout.post(mNextStep);
+        mLayout.postDelayed(mSampleMemory, MEMORY_SAMPLE_INTERVAL);
+    }
+
+    public void stop() {
+        mLayout.removeCallbacks(mNextStep);
+        mLayout.removeCallbacks(mSampleMemory);
+    }
+
+    private void startRun() {
+        mStep = 0;
+        mLayout.resetPerformanceStats();
+        System.gc();
+        mStartHeap = getUsedHeap();
+        mPeakHeap = mStartHeap;
+    }
+
+    private void nextStep() {
+        mPeakHeap = Math.max(mPeakHeap, getUsedHeap());
+
+        if (mStep == SCRIPT.length) {
+            finishRun();
+            mRun++;
+            if (mRun == mRuns) {
+                mLayout.removeCallbacks(mSampleMemory);
+                finish();
+                return;
+            }
+            startRun();
+        }
+
+        final int[] step = SCRIPT[mStep++];
+        switch (step[0]) {
+            case ACTION_SHOW_RIGHT:
+                mLayout.showRightPane();
+                break;
+
+            case ACTION_SHOW_LEFT:
+                mLayout.showLeftPane();
+                break;
+
+            case ACTION_CHANGE_ACTIVE:
+                mLayout.beginTransaction()
+                        .setActivePosition(ThreePaneLayout.PANE_LEFT, mLeftList, randomVisiblePosition(mLeftList))
+                        .setActivePosition(ThreePaneLayout.PANE_MIDDLE, mMiddleList,
+                                randomVisiblePosition(mMiddleList))
+                        .commit();
+                break;
+
+            case ACTION_JUMP_LISTS:
+                mLeftList.setSelection(mRandom.nextInt(mLeftList.getCount()));
+                mMiddleList.setSelection(mRandom.nextInt(mMiddleList.getCount()));
+                break;
+        }
+
+        mLayout.postDelayed(mNextStep, step[1]);
+    }
+
+    private int randomVisiblePosition(AbsListView list) {
+        final int visible = Math.max(list.getChildCount(), 1);
+        return list.getFirstVisiblePosition() + mRandom.nextInt(visible);
+    }
+
+    private void finishRun() {
+        final PerformanceStats stats = mStats;
+        mLayout.getPerformanceStats(stats);
+        mTotalFrames += stats.frameCount;
+        mTotalDropped += stats.droppedFrameCount;
+        mMaxFrameInterval = Math.max(mMaxFrameInterval, stats.getMaxFrameIntervalMillis());
+
+        mReport.append(String.format(Locale.US, "%-4d %6d %7d %8d %8.2f %8.2f %9d %9d %10d\n", mRun,
+                stats.transitionCount, stats.frameCount, stats.droppedFrameCount,
+                stats.getAverageFrameIntervalMillis(), stats.getMaxFrameIntervalMillis(), mStartHeap / 1024,
+                mPeakHeap / 1024, Debug.getNativeHeapAllocatedSize() / 1024));
+    }
+
+    private void finish() {
+        mReport.append(String.format(Locale.US, "Total: %d frames, %d dropped (%.1f%%), max frame interval %.2fms\n",
+                mTotalFrames, mTotalDropped, mTotalFrames > 0 ? 100.0f * mTotalDropped / mTotalFrames : 0.0f,
+                mMaxFrameInterval));
+        mListener.onStressComplete(mReport.toString());
+    }
+
+    private static long getUsedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}